@@ -0,0 +1,232 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+
+/**
+ * Summarizes many files at once.
+ * Files are spread over a fixed pool of worker threads which all share one
+ * loaded Pipeline.
+ */
+class Batch {
+
+
+  /** Number of worker threads */
+  private int threads;
+
+  /** The pipeline shared by every worker */
+  private Pipeline pipeline;
+
+  /** (Optional) cache of previously extracted text */
+  private NetworkCache cache;
+
+  /** (Optional) documents extracted earlier, to find near-duplicates in */
+  private DuplicateDetector duplicates;
+
+  /** (Optional) index the named entities of each file are added to */
+  private EntityIndex index;
+
+  /** Size of the windows files are read in; 0 reads files whole */
+  private int window;
+
+  /** Whether metadata is written next to each file */
+  private boolean writeMetadata;
+
+  /** Whether the summary is written next to each file */
+  private boolean writeSummary;
+
+  /** (Optional) reports the stats of each file */
+  private Stats.Reporter reporter;
+
+
+  /**
+   * Constructor.
+   * @param threads - number of worker threads
+   * @param pipeline - loaded pipeline shared by all workers
+   * @param cache - (optional) cache of previously extracted text
+   * @param duplicates - (optional) documents extracted earlier, to find near-duplicates in
+   * @param index - (optional) index the named entities of each file are added to
+   * @param window - size of the windows files are read in; 0 reads files whole
+   * @param writeMetadata - whether metadata is written next to each file
+   * @param writeSummary - whether the summary is written next to each file
+   * @param reporter - (optional) reports the stats of each file
+   */
+  Batch(final int threads,
+        final Pipeline pipeline,
+        final NetworkCache cache,
+        final DuplicateDetector duplicates,
+        final EntityIndex index,
+        final int window,
+        final boolean writeMetadata,
+        final boolean writeSummary,
+        final Stats.Reporter reporter) {
+    this.threads = threads;
+    this.pipeline = pipeline;
+    this.cache = cache;
+    this.duplicates = duplicates;
+    this.index = index;
+    this.window = window;
+    this.writeMetadata = writeMetadata;
+    this.writeSummary = writeSummary;
+    this.reporter = reporter;
+  }
+
+
+  /**
+   * Summarizes every file and reports the throughput once all are done.
+   * A file that fails is reported and does not stop the others.
+   * @param files - files to be summarized
+   * @throws InterruptedException
+   */
+  void run(final List<File> files) throws InterruptedException {
+
+    AtomicInteger failed = new AtomicInteger();
+    ExecutorService workers = Executors.newFixedThreadPool(this.threads);
+    long start = System.nanoTime();
+
+    for (File file : files) {
+      workers.execute(() -> {
+        Stats stats = (this.reporter == null) ? null : Stats.start(file.getName());
+        try {
+          Network summary = Manager.summarize(file, this.pipeline, this.cache, null, this.duplicates,
+                                              this.index, this.window, this.writeMetadata,
+                                              this.writeSummary);
+          synchronized (System.out) {
+            Manager.printSummary(file.getName(), summary);
+          }
+          Manager.report(this.reporter, stats);
+        } catch (Exception e) {
+          failed.incrementAndGet();
+          System.err.println("Failed to summarize '" + file + "': " + e);
+        } finally {
+          if (stats != null) {
+            stats.finish();
+          }
+        }
+      });
+    }
+
+    workers.shutdown();
+    workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+    double seconds = (System.nanoTime() - start) / 1e9;
+    int summarized = files.size() - failed.get();
+    System.out.printf("Summarized %d of %d files in %.2f s (%.2f docs/sec, %d threads)%n",
+                      summarized, files.size(), seconds, summarized / seconds, this.threads);
+    if (this.cache != null) {
+      System.out.println(this.cache.getStatistics());
+    }
+    if (this.duplicates != null) {
+      System.out.println(this.duplicates.getStatistics());
+    }
+    if (this.pipeline.getSentenceMemo() != null) {
+      System.out.println(this.pipeline.getSentenceMemo().getStatistics());
+    }
+  }
+
+
+  /**
+   * Finds the files to be summarized. The argument may be
+   * (1) a directory: every file directly inside it,
+   * (2) a glob: e.g., 'resources/*.txt' or 'feeds/**.txt',
+   * (3) a list: '@files.txt' where files.txt contains one path per line.
+   * Metadata and summary files written by previous runs are skipped.
+   * @param argument - directory, glob or @list
+   * @return files to be summarized, sorted by path
+   * @throws IOException
+   */
+  static List<File> resolve(final String argument) throws IOException {
+
+    List<File> files = new ArrayList<>();
+
+    Path path = Paths.get(argument);
+    if (argument.startsWith("@")) {
+
+      // List of files; a missing one is reported before any is summarized
+      for (String line : Files.readAllLines(Paths.get(argument.substring(1)))) {
+        line = line.trim();
+        if (line.length() != 0) {
+          Path listed = Paths.get(line);
+          if (!Files.isRegularFile(listed)) {
+            throw new IllegalArgumentException("File '" + line + "' in '" + argument + "' does not exist.");
+          }
+          addIfSource(files, listed);
+        }
+      }
+
+    } else if (Files.isDirectory(path)) {
+
+      // Directory
+      try (Stream<Path> paths = Files.list(path)) {
+        paths.forEach(p -> addIfSource(files, p));
+      }
+
+    } else {
+
+      // Glob: walk from the deepest directory without glob characters
+      PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + argument);
+      Path base = getGlobBase(argument);
+      if (Files.isDirectory(base)) {
+        try (Stream<Path> paths = Files.walk(base)) {
+          paths.filter(matcher::matches).forEach(p -> addIfSource(files, p));
+        }
+      }
+    }
+
+    if (files.isEmpty()) {
+      throw new IllegalArgumentException("No files found for '" + argument + "'.");
+    }
+
+    Collections.sort(files);
+    return files;
+  }
+
+
+  /**
+   * Adds a path to the list of files if it is a regular file that was not
+   * written by a previous run (i.e., not '-meta' or '-summary').
+   * @param files - list of files to add to
+   * @param path - path that may be added
+   */
+  private static void addIfSource(final List<File> files, final Path path) {
+    if (!Files.isRegularFile(path)) {
+      return;
+    }
+    String name = path.getFileName().toString();
+    int dot = name.indexOf(".");
+    String stem = (dot < 0) ? name : name.substring(0, dot);
+    if (!stem.endsWith("-meta") && !stem.endsWith("-summary")) {
+      files.add(path.toFile());
+    }
+  }
+
+
+  /**
+   * Gets the directory a glob should be searched from.
+   * @param glob - glob pattern
+   * @return leading part of the glob that contains no glob characters
+   */
+  private static Path getGlobBase(final String glob) {
+    int end = glob.length();
+    for (int i = 0; i < glob.length(); i++) {
+      if ("*?[{".indexOf(glob.charAt(i)) >= 0) {
+        end = i;
+        break;
+      }
+    }
+    int slash = glob.lastIndexOf(File.separatorChar, end);
+    return Paths.get(slash < 0 ? "" : glob.substring(0, slash + 1));
+  }
+}
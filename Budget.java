@@ -0,0 +1,201 @@
+import edu.stanford.nlp.ling.CoreAnnotations.TokensAnnotation;
+import edu.stanford.nlp.util.CoreMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+
+/**
+ * Latency budget of each document, so that one pathological input (a
+ * run-on sentence of hundreds of tokens, a table pasted as prose) cannot
+ * stall a worker for minutes in the parser or coreference.
+ *
+ * A sentence over the token cap, or one that is reached after the document
+ * has used up its budget, is degraded: it only gets the cheap annotators
+ * (pos, lemma, ner) and its triples are found by patterns over its
+ * part-of-speech tags. Before annotating, the time of the expensive
+ * annotators is projected from the tokens of each sentence and the time
+ * per token measured on earlier documents; if the document would not fit,
+ * its longest sentences are degraded until it does. Coreference is skipped
+ * when any sentence is degraded or it is projected to overrun the budget.
+ * Documents that are degraded are marked as such (see Extractor.isDegraded).
+ *
+ * Settings (keys of the config file):
+ *   budget.millis    - time budget of each document in milliseconds
+ *                      (default 0, no budget)
+ *   budget.maxTokens - most tokens of a sentence that gets every annotator
+ *                      (default 0, no limit)
+ */
+class Budget {
+
+
+  /** Prefix of every setting of the budget */
+  static final String PREFIX = "budget.";
+
+  /** Weight of the latest measure in the time per token */
+  private static final double WEIGHT = 0.3;
+
+  /** Time budget of each document in nanoseconds; 0 for none */
+  private long nanos;
+
+  /** Most tokens of a sentence that gets every annotator; 0 for no limit */
+  private int maxTokens;
+
+  /** Nanoseconds per token of the sentence-level annotators; 0 until measured */
+  private volatile double sentenceRate;
+
+  /** Nanoseconds per token of the document-level annotators; 0 until measured */
+  private volatile double documentRate;
+
+
+  /**
+   * Constructor.
+   * Reads the settings starting with 'budget.'; missing ones keep their default.
+   * @param props - settings
+   */
+  Budget(final Properties props) {
+    this.nanos = parseCount(props, "millis") * 1000000L;
+    this.maxTokens = parseCount(props, "maxTokens");
+  }
+
+
+  /**
+   * Checks whether documents are annotated within a budget at all.
+   * @return true if there is a time budget or a token cap
+   */
+  boolean isEnabled() {
+    return this.nanos > 0 || this.maxTokens > 0;
+  }
+
+
+  /**
+   * Chooses the sentences of a document that are degraded before it is
+   * annotated: those over the token cap, and then the longest ones until the
+   * rest are projected to fit in the budget.
+   * @param sentences - sentences of the document, split into tokens
+   * @param threads - threads annotating the sentences
+   * @return whether each sentence is degraded
+   */
+  boolean[] plan(final List<CoreMap> sentences, final int threads) {
+
+    boolean[] degraded = new boolean[sentences.size()];
+    List<Integer> order = new ArrayList<>(sentences.size());
+    long tokens = 0;
+    for (int i = 0; i < sentences.size(); i++) {
+      int count = countTokens(sentences.get(i));
+      if (this.maxTokens > 0 && count > this.maxTokens) {
+        degraded[i] = true;
+      } else {
+        tokens += count;
+        order.add(i);
+      }
+    }
+
+    // Degrade the longest sentences first, as they cost the most per token
+    double rate = this.sentenceRate / threads;
+    if (this.nanos > 0 && rate > 0 && tokens * rate > this.nanos) {
+      order.sort((a, b) -> Integer.compare(countTokens(sentences.get(b)),
+                                           countTokens(sentences.get(a))));
+      for (int i : order) {
+        if (tokens * rate <= this.nanos) {
+          break;
+        }
+        degraded[i] = true;
+        tokens -= countTokens(sentences.get(i));
+      }
+    }
+    return degraded;
+  }
+
+
+  /**
+   * Checks whether a document has used up its budget.
+   * @param start - when annotation of the document started (System.nanoTime)
+   * @return true if there is a time budget and it has run out
+   */
+  boolean isExceeded(final long start) {
+    return this.nanos > 0 && System.nanoTime() - start > this.nanos;
+  }
+
+
+  /**
+   * Checks whether the document-level annotators are projected to overrun
+   * the budget.
+   * @param start - when annotation of the document started (System.nanoTime)
+   * @param tokens - number of tokens of the document
+   * @return true if they would not finish within the budget
+   */
+  boolean isDocumentOverrun(final long start, final long tokens) {
+    return this.nanos > 0 && System.nanoTime() + tokens * this.documentRate - start > this.nanos;
+  }
+
+
+  /**
+   * Records how long the sentence-level annotators took on a sentence.
+   * @param tokens - number of tokens of the sentence
+   * @param nanos - time taken in nanoseconds
+   */
+  void recordSentence(final int tokens, final long nanos) {
+    this.sentenceRate = average(this.sentenceRate, tokens, nanos);
+  }
+
+
+  /**
+   * Records how long the document-level annotators took on a document.
+   * @param tokens - number of tokens of the document
+   * @param nanos - time taken in nanoseconds
+   */
+  void recordDocument(final long tokens, final long nanos) {
+    this.documentRate = average(this.documentRate, tokens, nanos);
+  }
+
+
+  /**
+   * Counts the tokens of a sentence.
+   * @param sentence - sentence split into tokens
+   * @return number of tokens
+   */
+  static int countTokens(final CoreMap sentence) {
+    return sentence.get(TokensAnnotation.class).size();
+  }
+
+
+  /**
+   * Adds a measure to a moving average of the time per token.
+   * @param rate - current average; 0 if there is none yet
+   * @param tokens - number of tokens measured
+   * @param nanos - time taken in nanoseconds
+   * @return new average
+   */
+  private static double average(final double rate, final long tokens, final long nanos) {
+    if (tokens == 0) {
+      return rate;
+    }
+    double measure = nanos / (double) tokens;
+    return (rate == 0) ? measure : rate + WEIGHT * (measure - rate);
+  }
+
+
+  /**
+   * Parses a setting that is a count.
+   * @param props - settings
+   * @param name - name of the setting without the prefix
+   * @return the count; 0 if the setting is missing
+   */
+  private static int parseCount(final Properties props, final String name) {
+    String value = props.getProperty(PREFIX + name);
+    if (value == null) {
+      return 0;
+    }
+    try {
+      int count = Integer.parseInt(value.trim());
+      if (count < 0) {
+        throw new NumberFormatException();
+      }
+      return count;
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid " + PREFIX + name + ": '" + value + "'.");
+    }
+  }
+}
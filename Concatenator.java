@@ -1,4 +1,5 @@
-import java.util.Map;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 
 /**
@@ -13,56 +14,64 @@ class Concatenator {
    * @return fused sentences with NER time data
    */
   static String fuse(Network network) {
-
-    // The String that will be fused
     StringBuilder summary = new StringBuilder();
+    try {
+      fuse(network, summary);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return summary.toString();
+  }
+
+
+  /**
+   * Fuses the sentences and the time information from NER data, writing
+   * each sentence out as soon as it is fused.
+   * @param network - summarized sentences
+   * @param summary - where the fused sentences are written
+   * @throws IOException
+   */
+  static void fuse(Network network, Appendable summary) throws IOException {
 
     // For each sentence, find all NER data in that same original sentence
     // If NER time data is found, append that to the sentence
-    for (Map.Entry<Integer, Sentence> pair : network.getCollection().entrySet()) {
+    for (Sentence sent : network) {
 
-      Sentence sent = pair.getValue();
       String sentence = sent.getCompressedSentence();
-      String time = sent.getTimeEntities();
+      TimeExpression time = Times.chooseDate(sent.getTimes());
 
       summary.append(appendData(sentence, time));
     }
-
-    return summary.toString();
   }
 
 
   /**
    * Appends the time NER information to a given sentence.
    * @param sentence - any String sentence
-   * @param time - the NER time data
+   * @param time - the date mentioned in the original sentence (may be null)
    * @return time and sentence together in one string
    */
-  private static String appendData(final String sentence, String time) {
-    String fused = sentence;
-    String endingString = sentence.substring(sentence.length() - 2, sentence.length());
-    if (needsToBeAppended(sentence, time)) {
-      String newEndingString = Times.getDateAndPreposition(time) + endingString;
-      fused = sentence.replace(endingString, newEndingString);
+  private static String appendData(final String sentence, final TimeExpression time) {
+    if (time == null || !needsToBeAppended(sentence, time)) {
+      return sentence;
     }
-    return fused;
+    int ending = sentence.length() - 2;
+    return sentence.substring(0, ending) + Times.getDateAndPreposition(time) + sentence.substring(ending);
   }
 
 
   /**
    * Checks whether the time string exists inside of the sentence already.
    * @param sentence - sentence that may or may not contain the time data
-   * @param time - time NER data
+   * @param time - the date
    * @return true if the time data needs to be appended
    */
-  private static boolean needsToBeAppended(String sentence, String time) {
-    String[] tokens = time.split("\\s+");
-    for (String token : tokens) {
-      token = token.trim();
-      if (token.length() != 0 && sentence.contains(token)) {
+  private static boolean needsToBeAppended(final String sentence, final TimeExpression time) {
+    for (String word : time.getWords()) {
+      if (sentence.contains(word)) {
         return false;
       }
     }
     return true;
   }
-}
\ No newline at end of file
+}
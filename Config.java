@@ -0,0 +1,119 @@
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Properties;
+
+
+/**
+ * Settings read from a properties file.
+ * 'profile' chooses the annotator Profile, keys starting with 'triples.'
+ * configure the TripleFilter and keys starting with 'budget.' the latency
+ * Budget. Any other key is handed to Stanford CoreNLP as is, e.g.,
+ * 'parse.model' to switch to the shift-reduce parser or 'ner.useSUTime'.
+ */
+class Config {
+
+
+  /** Key for the annotator profile */
+  static final String PROFILE = "profile";
+
+  /** Key for the scorer choosing each sentence's representative triple */
+  static final String SCORER = TripleFilter.PREFIX + "scorer";
+
+  /** All settings */
+  private Properties properties;
+
+
+  /**
+   * Constructor.
+   * Creates an empty configuration.
+   */
+  Config() {
+    this.properties = new Properties();
+  }
+
+
+  /**
+   * Constructor.
+   * Reads the configuration from a properties file.
+   * @param file - properties file
+   * @throws IOException
+   */
+  Config(final File file) throws IOException {
+    this();
+    try (Reader reader = new FileReader(file)) {
+      this.properties.load(reader);
+    } catch (IOException e) {
+      throw new IOException("Unable to read config file: " + file, e);
+    }
+  }
+
+
+  /**
+   * Gets the annotator profile. Defaults to FULL.
+   * @return profile
+   */
+  Profile getProfile() {
+    return Profile.forName(this.properties.getProperty(PROFILE, Profile.FULL.name()));
+  }
+
+
+  /**
+   * Creates a copy of this configuration using a different profile.
+   * @param profile - the profile
+   * @return new configuration
+   */
+  Config withProfile(final Profile profile) {
+    Config config = new Config();
+    config.properties.putAll(this.properties);
+    config.properties.setProperty(PROFILE, profile.name());
+    return config;
+  }
+
+
+  /**
+   * Gets the filter deciding which triples are kept.
+   * @return triple filter
+   */
+  TripleFilter getTripleFilter() {
+    return new TripleFilter(this.properties);
+  }
+
+
+  /**
+   * Gets the scorer choosing each sentence's representative triple.
+   * Defaults to the longest triple.
+   * @return triple scorer
+   */
+  TripleScorer getTripleScorer() {
+    return TripleScorer.forName(this.properties.getProperty(SCORER, "longest"));
+  }
+
+
+  /**
+   * Gets the latency budget of each document.
+   * @return budget
+   */
+  Budget getBudget() {
+    return new Budget(this.properties);
+  }
+
+
+  /**
+   * Gets the settings that are handed to Stanford CoreNLP: those of the
+   * profile, overridden by those of the config file.
+   * @return CoreNLP properties
+   */
+  Properties getCoreNLPProperties() {
+    Properties props = getProfile().getSettings();
+    for (String key : this.properties.stringPropertyNames()) {
+      if (!key.equals(PROFILE)
+          && !key.startsWith(TripleFilter.PREFIX)
+          && !key.startsWith(Budget.PREFIX)) {
+        props.setProperty(key, this.properties.getProperty(key));
+      }
+    }
+    return props;
+  }
+}
@@ -0,0 +1,352 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * In-memory detector of near-duplicate documents, e.g., the same wire story
+ * carried by several outlets with trivial edits. A document whose text is
+ * similar enough to a document seen earlier reuses that document's network
+ * and named entities instead of being annotated.
+ *
+ * Similarity is the Jaccard similarity of the sets of shingles (runs of
+ * SHINGLE_WORDS words, ignoring case and punctuation) of two documents. It is
+ * estimated with MinHash signatures of SIGNATURE_SIZE hashes, and candidates
+ * are found with locality-sensitive hashing: the signature is cut into bands,
+ * and documents sharing any band are compared. The band width is chosen so
+ * that documents at the threshold are nearly always found.
+ *
+ * The extracted metadata of each document is kept in the compact binary
+ * format; the oldest documents are forgotten once it takes more than the
+ * given number of bytes. A detector can be shared by several threads.
+ */
+class DuplicateDetector {
+
+
+  /** Number of words in a shingle */
+  private static final int SHINGLE_WORDS = 5;
+
+  /** Number of hashes in a signature */
+  private static final int SIGNATURE_SIZE = 128;
+
+  /** Least chance of finding a document whose similarity is at the threshold */
+  private static final double RECALL = 0.99;
+
+  /** Multipliers and increments of the hash functions */
+  private static final long[] MULTIPLIERS = new long[SIGNATURE_SIZE], INCREMENTS = new long[SIGNATURE_SIZE];
+
+  static {
+    Random random = new Random(0x5EEDL);
+    for (int i = 0; i < SIGNATURE_SIZE; i++) {
+      MULTIPLIERS[i] = random.nextLong() | 1;
+      INCREMENTS[i] = random.nextLong();
+    }
+  }
+
+  /** Least similarity of near-duplicates */
+  private double threshold;
+
+  /** Hashes in each band of a signature */
+  private int rows;
+
+  /** Maximum number of bytes of metadata kept */
+  private long maxBytes;
+
+  /** Bytes of metadata kept */
+  private long bytes;
+
+  /** Documents kept, oldest first */
+  private ArrayDeque<Document> documents = new ArrayDeque<>();
+
+  /** Documents by the hash of each band of their signature */
+  private List<Map<Long, List<Document>>> bands = new ArrayList<>();
+
+  /** Number of documents looked up */
+  private AtomicLong lookups = new AtomicLong();
+
+  /** Number of documents found to be near-duplicates */
+  private AtomicLong duplicates = new AtomicLong();
+
+
+  /**
+   * A document that has been extracted.
+   */
+  private static class Document {
+
+
+    /** MinHash signature of the text */
+    private int[] signature;
+
+    /** Hash of each band of the signature */
+    private long[] bands;
+
+    /** Extracted metadata */
+    private byte[] metadata;
+
+
+    /**
+     * Constructor.
+     * @param signature - MinHash signature of the text
+     * @param bands - hash of each band of the signature
+     * @param metadata - extracted metadata
+     */
+    Document(final int[] signature, final long[] bands, final byte[] metadata) {
+      this.signature = signature;
+      this.bands = bands;
+      this.metadata = metadata;
+    }
+  }
+
+
+  /**
+   * Constructor.
+   * @param threshold - least similarity (greater than 0, at most 1) of near-duplicates
+   * @param maxBytes - maximum number of bytes of metadata kept
+   */
+  DuplicateDetector(final double threshold, final long maxBytes) {
+    if (!(threshold > 0 && threshold <= 1)) {
+      throw new IllegalArgumentException("Similarity must be greater than 0 and at most 1: " + threshold);
+    }
+    this.threshold = threshold;
+    this.maxBytes = maxBytes;
+    this.rows = getRows(threshold);
+    for (int i = 0; i < SIGNATURE_SIZE / this.rows; i++) {
+      this.bands.add(new HashMap<>());
+    }
+  }
+
+
+  /**
+   * Computes the MinHash signature of a text.
+   * @param text - normalized text (see Fyles.getText)
+   * @return signature, or null if the text has no words
+   */
+  static int[] sign(final String text) {
+
+    // Hash the words, ignoring case and punctuation
+    long[] words = new long[16];
+    int count = 0;
+    int length = text.length();
+    int i = 0;
+    while (i < length) {
+      while (i < length && !Character.isLetterOrDigit(text.charAt(i))) {
+        i++;
+      }
+      if (i == length) {
+        break;
+      }
+      long hash = 1125899906842597L;
+      while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+        hash = 31 * hash + Character.toLowerCase(text.charAt(i++));
+      }
+      if (count == words.length) {
+        words = Arrays.copyOf(words, count * 2);
+      }
+      words[count++] = hash;
+    }
+    if (count == 0) {
+      return null;
+    }
+
+    // Keep the least hash of the shingles for each hash function
+    int[] signature = new int[SIGNATURE_SIZE];
+    Arrays.fill(signature, Integer.MAX_VALUE);
+    int shingles = Math.max(1, count - SHINGLE_WORDS + 1);
+    for (int s = 0; s < shingles; s++) {
+      long shingle = 0;
+      for (int w = s; w < Math.min(s + SHINGLE_WORDS, count); w++) {
+        shingle = mix(shingle * 31 + words[w]);
+      }
+      for (int h = 0; h < SIGNATURE_SIZE; h++) {
+        int value = (int) ((shingle * MULTIPLIERS[h] + INCREMENTS[h]) >>> 33);
+        if (value < signature[h]) {
+          signature[h] = value;
+        }
+      }
+    }
+    return signature;
+  }
+
+
+  /**
+   * Finds a document seen earlier whose text is similar to a signature.
+   * @param signature - signature of the text (see sign)
+   * @return metadata of the most similar document, or null if there is none
+   * @throws IOException
+   */
+  Metadata find(final int[] signature) throws IOException {
+    this.lookups.incrementAndGet();
+    if (signature == null) {
+      return null;
+    }
+    long[] bands = getBands(signature);
+    Document best = null;
+    double bestSimilarity = this.threshold;
+    synchronized (this) {
+      for (int b = 0; b < bands.length; b++) {
+        List<Document> candidates = this.bands.get(b).get(bands[b]);
+        if (candidates == null) {
+          continue;
+        }
+        for (Document candidate : candidates) {
+          double similarity = getSimilarity(signature, candidate.signature);
+          if (similarity > bestSimilarity || (best == null && similarity == bestSimilarity)) {
+            best = candidate;
+            bestSimilarity = similarity;
+          }
+        }
+      }
+    }
+    if (best == null) {
+      return null;
+    }
+    this.duplicates.incrementAndGet();
+    return new Metadata(new ByteArrayInputStream(best.metadata));
+  }
+
+
+  /**
+   * Keeps the metadata of a document, so that its near-duplicates can reuse it.
+   * The oldest documents are forgotten if too many bytes are kept.
+   * @param signature - signature of the text (see sign)
+   * @param network - network extracted from the text
+   * @param ner - named entities extracted from the text
+   * @throws IOException
+   */
+  void add(final int[] signature, final Network network, final EntitiesList ner) throws IOException {
+    if (signature == null) {
+      return;
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    MetadataWriter.write(out, "", network, ner);
+    Document document = new Document(signature, getBands(signature), out.toByteArray());
+    if (document.metadata.length > this.maxBytes) {
+      return;
+    }
+
+    synchronized (this) {
+      this.documents.addLast(document);
+      this.bytes += document.metadata.length;
+      for (int b = 0; b < document.bands.length; b++) {
+        this.bands.get(b).computeIfAbsent(document.bands[b], k -> new ArrayList<>(1)).add(document);
+      }
+
+      // Forget the oldest documents
+      while (this.bytes > this.maxBytes) {
+        Document oldest = this.documents.removeFirst();
+        this.bytes -= oldest.metadata.length;
+        for (int b = 0; b < oldest.bands.length; b++) {
+          Map<Long, List<Document>> band = this.bands.get(b);
+          List<Document> bucket = band.get(oldest.bands[b]);
+          bucket.remove(oldest);
+          if (bucket.isEmpty()) {
+            band.remove(oldest.bands[b]);
+          }
+        }
+      }
+    }
+  }
+
+
+  /**
+   * Gets the number of documents found to be near-duplicates, each of which
+   * saved annotating a document.
+   * @return near-duplicates
+   */
+  long getDuplicates() {
+    return this.duplicates.get();
+  }
+
+
+  /**
+   * Gets the number of documents looked up.
+   * @return lookups
+   */
+  long getLookups() {
+    return this.lookups.get();
+  }
+
+
+  /**
+   * Describes how many documents were near-duplicates.
+   * @return statistics
+   */
+  String getStatistics() {
+    return "Near-duplicates: " + getDuplicates() + " of " + getLookups()
+           + " documents looked up reused an earlier annotation";
+  }
+
+
+  /**
+   * Estimates the similarity of the texts of two signatures.
+   * @param a - a signature
+   * @param b - another signature
+   * @return fraction of hashes the signatures share
+   */
+  static double getSimilarity(final int[] a, final int[] b) {
+    int same = 0;
+    for (int i = 0; i < SIGNATURE_SIZE; i++) {
+      if (a[i] == b[i]) {
+        same++;
+      }
+    }
+    return same / (double) SIGNATURE_SIZE;
+  }
+
+
+  /**
+   * Hashes each band of a signature.
+   * @param signature - signature of a text
+   * @return hash of each band
+   */
+  private long[] getBands(final int[] signature) {
+    long[] bands = new long[SIGNATURE_SIZE / this.rows];
+    for (int b = 0; b < bands.length; b++) {
+      long hash = b;
+      for (int r = b * this.rows; r < (b + 1) * this.rows; r++) {
+        hash = mix(hash * 31 + signature[r]);
+      }
+      bands[b] = hash;
+    }
+    return bands;
+  }
+
+
+  /**
+   * Chooses the widest bands (the fewest candidates to compare) that still
+   * find documents at the threshold with a chance of at least RECALL.
+   * @param threshold - least similarity of near-duplicates
+   * @return hashes in each band, a power of two
+   */
+  private static int getRows(final double threshold) {
+    int rows = 1;
+    while (rows * 2 <= SIGNATURE_SIZE) {
+      int wider = rows * 2;
+      double found = 1 - Math.pow(1 - Math.pow(threshold, wider), SIGNATURE_SIZE / wider);
+      if (found < RECALL) {
+        break;
+      }
+      rows = wider;
+    }
+    return rows;
+  }
+
+
+  /**
+   * Spreads the bits of a hash.
+   * @param hash - hash
+   * @return mixed hash
+   */
+  private static long mix(final long hash) {
+    long h = hash * 0x9E3779B97F4A7C15L;
+    return h ^ (h >>> 31);
+  }
+}
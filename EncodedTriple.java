@@ -0,0 +1,71 @@
+/**
+ * A triple whose actor, action and receiver are ids in a table of phrases
+ * (see Phrases) rather than strings of their own. It behaves like any other
+ * triple; the strings are looked up in the table when asked for.
+ */
+class EncodedTriple extends Triple {
+
+
+  /** Table the ids refer to */
+  private Phrases phrases;
+
+  /** Ids of the actor, action and receiver */
+  private int actor, action, receiver;
+
+
+  /**
+   * Constructor.
+   * @param phrases - table the phrases are added to
+   * @param actor - subject
+   * @param action - verb or verb phrase
+   * @param receiver - direct object or object of predicate
+   * @param score - confidence score assigned to each Triple
+   */
+  EncodedTriple(final Phrases phrases,
+                final String actor,
+                final String action,
+                final String receiver,
+                final double score) {
+    super(score, actor.length() + action.length() + receiver.length());
+    this.phrases = phrases;
+    this.actor = phrases.intern(actor);
+    this.action = phrases.intern(action);
+    this.receiver = phrases.intern(receiver);
+  }
+
+
+  /**
+   * Encodes a triple.
+   * @param phrases - table the phrases are added to
+   * @param triple - triple to be encoded
+   * @return the encoded triple (the triple itself if it already uses the table)
+   */
+  static Triple encode(final Phrases phrases, final Triple triple) {
+    if (triple instanceof EncodedTriple && ((EncodedTriple) triple).phrases == phrases) {
+      return triple;
+    }
+    return new EncodedTriple(phrases,
+                             triple.getActor(),
+                             triple.getAction(),
+                             triple.getReceiver(),
+                             triple.getScore());
+  }
+
+
+  @Override
+  String getActor() {
+    return this.phrases.get(this.actor);
+  }
+
+
+  @Override
+  String getAction() {
+    return this.phrases.get(this.action);
+  }
+
+
+  @Override
+  String getReceiver() {
+    return this.phrases.get(this.receiver);
+  }
+}
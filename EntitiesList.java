@@ -1 +1 @@
-import java.util.LinkedHashMap;import java.util.List;import java.util.Map;/** * Contains a list of named entities. */class EntitiesList {  /** List of named entities */  private LinkedHashMap<String, Entity> namedEntities;  /**   * Constructor.   * Initializes collection to hold NER information where an Entity object   * contains a noun, its classified entity,and its sentence number.   */  EntitiesList() {    this.namedEntities = new LinkedHashMap<>();  }  /**   * Adds a noun, named entity, and corresponding sentence number.   * @param noun - named entity noun   * @param ner - named entity tag   * @param sentenceNumber - sentence number entity occurred in   */  void add(final String noun, final String ner, final int sentenceNumber) {    this.namedEntities.put(noun, new Entity(noun, ner, sentenceNumber));  }  /**   * Gets the type of named entity information the noun is (e.g., date, person).   * @param noun - noun existing in the named entity list   * @return type - type of entity information   */  protected String getType(final String noun) {    return this.namedEntities.get(noun).getType();  }  /**   * Gets a time entity.   * @return time entity   */  String getTimeEntity() {    StringBuilder time = new StringBuilder("");    int counter = 0; // Preventing too many data items being thrown together    for (Map.Entry<String, Entity> pair : this.namedEntities.entrySet()) {      Entity entity = pair.getValue();        String noun = entity.getNoun();        if (entity.getType().equals("DATE") && counter < 3) {          time.append(" ");          time.append(noun);          ++counter;        }    }    return time.toString();  }  /**   * Gets the sentence number for a given noun.   * @param noun - noun in list of entities   * @return sentence number   */  protected List<Integer> getSentenceNumbers(final String noun) {    return this.namedEntities.get(noun).getSentenceNumbers();  }  @Override  public String toString() {    StringBuilder output = new StringBuilder();    for (Map.Entry<String, Entity> pair : this.namedEntities.entrySet()) {      String name = pair.getKey();      Entity entity = pair.getValue();      output.append(name);      output.append(" -> ");      output.append(entity.getType());      output.append(" (sentence numbers: ");      // Dealing with multiple sentence numbers      output.append(entity.getSentenceNumbers().toString());      output.append(")\n");    }    return output.append("\n").toString();  }}
\ No newline at end of file
+import java.io.IOException;import java.io.UncheckedIOException;import java.util.ArrayList;import java.util.Collection;import java.util.Collections;import java.util.HashMap;import java.util.LinkedHashMap;import java.util.List;import java.util.Map;import java.util.concurrent.ConcurrentHashMap;/** * Contains a list of named entities. * Each noun is stored once, with every sentence it was found in; a * multi-word entity (e.g., "Leo Tolstoy") is added as a single noun. * Types are interned, since a handful of them are shared by every entity. * Entities can be looked up by noun, by type and by sentence; the type and * sentence indexes are built on the first such lookup and kept up to date * afterwards. */class EntitiesList {  /** Every type seen so far, so each is held in memory once */  private static final Map<String, String> TYPES = new ConcurrentHashMap<>();  /** List of named entities */  private LinkedHashMap<String, Entity> namedEntities;  /** Named entities of each type; null until first needed */  private Map<String, List<Entity>> byType;  /** Named entities of each sentence; null until first needed */  private Map<Integer, List<Entity>> bySentence;  /**   * Constructor.   * Initializes collection to hold NER information where an Entity object   * contains a noun, its classified entity,and its sentence number.   */  EntitiesList() {    this.namedEntities = new LinkedHashMap<>();  }  /**   * Adds a noun, named entity, and corresponding sentence number. A noun   * that is already in the list keeps its type and gains the sentence number.   * @param noun - named entity noun   * @param ner - named entity tag   * @param sentenceNumber - sentence number entity occurred in   */  void add(final String noun, final String ner, final int sentenceNumber) {    Entity entity = this.namedEntities.get(noun);    if (entity == null) {      entity = new Entity(noun, intern(ner), sentenceNumber);      this.namedEntities.put(noun, entity);      if (this.byType != null) {        index(this.byType, entity.getType(), entity);      }    } else if (!entity.addSentenceNumber(sentenceNumber)) {      return;    }    if (this.bySentence != null) {      index(this.bySentence, sentenceNumber, entity);    }  }  /**   * Gets every named entity, in the order they were first added.   * @return named entities   */  Collection<Entity> getEntities() {    return this.namedEntities.values();  }  /**   * Gets the number of named entities.   * @return number of distinct nouns   */  int size() {    return this.namedEntities.size();  }  /**   * Gets a named entity by its noun.   * @param noun - noun of the named entity   * @return the named entity, or null if the noun is not in the list   */  Entity get(final String noun) {    return this.namedEntities.get(noun);  }  /**   * Gets the named entities of a type.   * @param type - type of named entity (e.g., PERSON, DATE)   * @return named entities in the order they were first added; empty if none   */  List<Entity> getEntitiesOfType(final String type) {    if (this.byType == null) {      this.byType = new HashMap<>();      for (Entity entity : this.namedEntities.values()) {        index(this.byType, entity.getType(), entity);      }    }    return unmodifiable(this.byType.get(type));  }  /**   * Gets the named entities found in a sentence.   * @param sentenceNumber - sentence number   * @return named entities in the order they were found; empty if none   */  List<Entity> getEntitiesIn(final int sentenceNumber) {    if (this.bySentence == null) {      this.bySentence = new HashMap<>();      for (Entity entity : this.namedEntities.values()) {        for (int i = 0; i < entity.getSentenceCount(); i++) {          index(this.bySentence, entity.getSentenceNumber(i), entity);        }      }    }    return unmodifiable(this.bySentence.get(sentenceNumber));  }  /**   * Gets the type of named entity information the noun is (e.g., date, person).   * @param noun - noun existing in the named entity list   * @return type - type of entity information   */  protected String getType(final String noun) {    return this.namedEntities.get(noun).getType();  }  /**   * Gets the sentence numbers for a given noun.   * @param noun - noun in list of entities   * @return sentence numbers   */  protected int[] getSentenceNumbers(final String noun) {    return this.namedEntities.get(noun).getSentenceNumbers();  }  /**   * Writes every named entity, one per line, followed by a blank line.   * @param out - where the named entities are written   * @throws IOException   */  void write(final Appendable out) throws IOException {    for (Entity entity : this.namedEntities.values()) {      out.append(entity.getNoun());      out.append(" -> ");      out.append(entity.getType());      out.append(" (sentence numbers: ");      // Dealing with multiple sentence numbers      entity.writeSentenceNumbers(out);      out.append(")\n");    }    out.append("\n");  }  /**   * Adds a named entity to an index.   * @param index - the index   * @param key - key the named entity is found under   * @param entity - the named entity   * @param <K> - type of the keys   */  private static <K> void index(final Map<K, List<Entity>> index, final K key, final Entity entity) {    index.computeIfAbsent(key, k -> new ArrayList<>(2)).add(entity);  }  /**   * Wraps a list of an index so it cannot be changed by the caller.   * @param entities - list of the index (may be null)   * @return read-only list; empty if there is none   */  private static List<Entity> unmodifiable(final List<Entity> entities) {    return (entities == null) ? Collections.<Entity>emptyList() : Collections.unmodifiableList(entities);  }  /**   * Gets the one copy of a type kept in memory.   * @param type - type of named entity   * @return interned type   */  private static String intern(final String type) {    String interned = TYPES.putIfAbsent(type, type);    return (interned == null) ? type : interned;  }  @Override  public String toString() {    StringBuilder output = new StringBuilder();    try {      write(output);    } catch (IOException e) {      throw new UncheckedIOException(e);    }    return output.toString();  }}
\ No newline at end of file
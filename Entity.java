@@ -1,5 +1,5 @@
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.util.Arrays;
 
 
 /**
@@ -14,20 +14,24 @@ class Entity {
   /** The type of named entity */
   private String type;
 
-  /** The corresponding sentence number */
-  private List<Integer> sentenceNumbers;
+  /** The sentence numbers the entity was found in, in the order found */
+  private int[] sentenceNumbers;
+
+  /** Number of sentence numbers in use */
+  private int sentenceCount;
 
 
   /**
    * Constructor.
+   * @param noun - the noun (or words) of the named entity
    * @param type - the type of named entity
    * @param sentenceNumber - the sentence number in which the NER was found
    */
   Entity(final String noun, final String type, final int sentenceNumber) {
     this.noun = noun;
     this.type = type;
-    this.sentenceNumbers = new ArrayList<>(1);
-    this.sentenceNumbers.add(sentenceNumber);
+    this.sentenceNumbers = new int[] { sentenceNumber };
+    this.sentenceCount = 1;
   }
 
 
@@ -50,10 +54,67 @@ class Entity {
 
 
   /**
-   * Gets the sentence number.
+   * Gets the number of sentences the entity was found in.
+   * @return number of sentence numbers
+   */
+  int getSentenceCount() {
+    return this.sentenceCount;
+  }
+
+
+  /**
+   * Gets one of the sentence numbers.
+   * @param index - index from 0 to getSentenceCount() - 1
    * @return sentence number
    */
-  List<Integer> getSentenceNumbers() {
-    return this.sentenceNumbers;
+  int getSentenceNumber(final int index) {
+    if (index < 0 || index >= this.sentenceCount) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", count: " + this.sentenceCount);
+    }
+    return this.sentenceNumbers[index];
+  }
+
+
+  /**
+   * Gets the sentence numbers.
+   * @return copy of the sentence numbers, in the order found
+   */
+  int[] getSentenceNumbers() {
+    return Arrays.copyOf(this.sentenceNumbers, this.sentenceCount);
+  }
+
+
+  /**
+   * Adds a sentence number, unless it is the last one added (the entity
+   * was found again in the same sentence).
+   * @param sentenceNumber - the sentence number
+   * @return true if it was added
+   */
+  boolean addSentenceNumber(final int sentenceNumber) {
+    if (this.sentenceNumbers[this.sentenceCount - 1] == sentenceNumber) {
+      return false;
+    }
+    if (this.sentenceCount == this.sentenceNumbers.length) {
+      this.sentenceNumbers = Arrays.copyOf(this.sentenceNumbers, this.sentenceCount * 2);
+    }
+    this.sentenceNumbers[this.sentenceCount++] = sentenceNumber;
+    return true;
+  }
+
+
+  /**
+   * Writes the sentence numbers as a list, e.g., '[1, 4, 7]'.
+   * @param out - where the sentence numbers are written
+   * @throws IOException
+   */
+  void writeSentenceNumbers(final Appendable out) throws IOException {
+    out.append('[');
+    for (int i = 0; i < this.sentenceCount; i++) {
+      if (i > 0) {
+        out.append(", ");
+      }
+      out.append(Integer.toString(this.sentenceNumbers[i]));
+    }
+    out.append(']');
   }
-}
\ No newline at end of file
+}
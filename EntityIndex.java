@@ -0,0 +1,870 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+
+/**
+ * On-disk index of the named entities of every document summarized: for
+ * each entity (noun and type), the documents and sentence numbers that
+ * mention it. Documents are added as they are extracted, and lookups read
+ * memory-mapped files, so the index does not have to fit in the heap.
+ *
+ * The directory holds
+ *   documents.txt   - path of each document, one per line; the line number
+ *                     is the document's id. A document added again gets a
+ *                     new id, and only its latest mentions are found.
+ *   segment-N.idx   - immutable segments, each with the mentions of the
+ *                     documents added since the previous one
+ * Mentions are buffered and written as a new segment once there are enough
+ * of them, and when the index is closed. Segments are merged into one when
+ * there are too many of them; the merged segment records the numbers of the
+ * segments it replaces, so they are ignored until they are deleted (or if
+ * deleting them failed).
+ *
+ * A segment is a header (magic number, version, first and last number of
+ * the segments it replaces; 0 and -1 for none), then an entry for each
+ * entity in key order: the length and UTF-8 bytes of the key (noun, a zero
+ * byte, type), the number of mentions and the (document id, sentence number)
+ * pairs. The offset of each entry follows, then the number of entries and
+ * the offset of that table, so entities are found with a binary search.
+ *
+ * One process at a time may add documents; any number may look them up.
+ */
+class EntityIndex implements Closeable {
+
+
+  /** Marks the start of a segment */
+  private static final int MAGIC = 0x454e5449;
+
+  /** Version of the segment format */
+  private static final int VERSION = 2;
+
+  /** File listing the documents */
+  private static final String DOCUMENTS = "documents.txt";
+
+  /** Prefix and extension of segments */
+  private static final String SEGMENT_PREFIX = "segment-", SEGMENT_EXTENSION = ".idx";
+
+  /** Number of buffered mentions that are written as a segment */
+  private static final int FLUSH_MENTIONS = 1 << 20;
+
+  /** Number of segments above which they are merged */
+  private static final int MERGE_SEGMENTS = 16;
+
+  /** Directory holding the index */
+  private Path directory;
+
+  /** Lock held while adding documents; null until the first is added */
+  private FileChannel lockChannel;
+  private FileLock lock;
+
+  /** Appends to the list of documents */
+  private Writer documents;
+
+  /** Id of the next document added */
+  private int nextDocument;
+
+  /** Number of the next segment written */
+  private int nextSegment;
+
+  /** Mentions not written yet, by key */
+  private Map<String, Mentions> buffered = new HashMap<>();
+
+  /** Number of mentions not written yet */
+  private int bufferedMentions;
+
+  /** Segments mapped so far, by file */
+  private Map<Path, Segment> mapped = new HashMap<>();
+
+  /** Paths of the documents, as last read */
+  private List<String> paths = new ArrayList<>();
+
+  /** Whether each document is the latest with its path, as last read */
+  private boolean[] latest = new boolean[0];
+
+  /** Size of the list of documents when last read */
+  private long documentsSize = -1;
+
+
+  /**
+   * A mention of an entity found by a lookup.
+   */
+  static class Mention {
+
+
+    /** Path of the document */
+    private String document;
+
+    /** Type of the entity */
+    private String type;
+
+    /** Sentence number in the document */
+    private int sentenceNumber;
+
+
+    /**
+     * Constructor.
+     * @param document - path of the document
+     * @param type - type of the entity
+     * @param sentenceNumber - sentence number in the document
+     */
+    Mention(final String document, final String type, final int sentenceNumber) {
+      this.document = document;
+      this.type = type;
+      this.sentenceNumber = sentenceNumber;
+    }
+
+
+    /**
+     * Gets the path of the document.
+     * @return path
+     */
+    String getDocument() {
+      return this.document;
+    }
+
+
+    /**
+     * Gets the type of the entity.
+     * @return type
+     */
+    String getType() {
+      return this.type;
+    }
+
+
+    /**
+     * Gets the sentence number.
+     * @return sentence number
+     */
+    int getSentenceNumber() {
+      return this.sentenceNumber;
+    }
+  }
+
+
+  /**
+   * Constructor.
+   * @param directory - directory holding the index; created if needed
+   * @throws IOException
+   */
+  EntityIndex(final File directory) throws IOException {
+    this.directory = directory.toPath();
+    Files.createDirectories(this.directory);
+  }
+
+
+  /**
+   * Adds the named entities of a document. They can be looked up once
+   * written, which happens when enough are buffered and on close.
+   * @param document - path of the document
+   * @param ner - named entities of the document
+   * @throws IOException
+   */
+  synchronized void add(final String document, final EntitiesList ner) throws IOException {
+    if (document.indexOf('\n') >= 0 || document.indexOf('\r') >= 0) {
+      throw new IllegalArgumentException("Document path has a line break: " + document);
+    }
+    openForWriting();
+    int id = this.nextDocument++;
+    this.documents.write(document);
+    this.documents.write('\n');
+    this.documents.flush();
+
+    for (Entity entity : ner.getEntities()) {
+      Mentions mentions = this.buffered.computeIfAbsent(key(entity.getNoun(), entity.getType()),
+                                                        key -> new Mentions());
+      for (int i = 0; i < entity.getSentenceCount(); i++) {
+        mentions.add(id, entity.getSentenceNumber(i));
+      }
+      this.bufferedMentions += entity.getSentenceCount();
+    }
+    if (this.bufferedMentions >= FLUSH_MENTIONS) {
+      flush();
+    }
+  }
+
+
+  /**
+   * Writes the buffered mentions as a new segment, merging the segments if
+   * there are too many.
+   * @throws IOException
+   */
+  synchronized void flush() throws IOException {
+    if (this.buffered.isEmpty()) {
+      return;
+    }
+    List<byte[]> keys = new ArrayList<>(this.buffered.size());
+    Map<byte[], Mentions> byKey = new HashMap<>();
+    for (Map.Entry<String, Mentions> entry : this.buffered.entrySet()) {
+      byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+      keys.add(key);
+      byKey.put(key, entry.getValue());
+    }
+    keys.sort(EntityIndex::compare);
+
+    try (SegmentWriter writer = new SegmentWriter(newSegment(), 0, -1)) {
+      for (byte[] key : keys) {
+        Mentions mentions = byKey.get(key);
+        writer.add(key, mentions.pairs, mentions.size);
+      }
+    }
+    this.buffered.clear();
+    this.bufferedMentions = 0;
+
+    List<Path> segments = getSegments();
+    if (segments.size() > MERGE_SEGMENTS) {
+      merge(segments);
+    }
+  }
+
+
+  /**
+   * Finds the mentions of an entity.
+   * @param noun - noun of the entity, e.g., "Leo Tolstoy"
+   * @param type - (optional) type of the entity, e.g., PERSON; any type if null
+   * @return mentions, by segment and then in the order they were added
+   * @throws IOException
+   */
+  synchronized List<Mention> lookup(final String noun, final String type) throws IOException {
+    readDocuments();
+    byte[] prefix = (type == null ? noun + '\0' : key(noun, type)).getBytes(StandardCharsets.UTF_8);
+    List<Mention> found = new ArrayList<>();
+    for (Path path : getSegments()) {
+      Segment segment = this.mapped.get(path);
+      for (int i = segment.lowerBound(prefix); i < segment.size() && segment.startsWith(i, prefix); i++) {
+        if (type != null && segment.keyLength(i) != prefix.length) {
+          continue;
+        }
+        String entityType = segment.typeOf(i, noun.getBytes(StandardCharsets.UTF_8).length + 1);
+        int count = segment.mentionCount(i);
+        for (int j = 0; j < count; j++) {
+          int document = segment.document(i, j);
+          if (document < this.latest.length && this.latest[document]) {
+            found.add(new Mention(this.paths.get(document), entityType, segment.sentenceNumber(i, j)));
+          }
+        }
+      }
+    }
+    return found;
+  }
+
+
+  /**
+   * Writes the buffered mentions and lets other processes add documents.
+   * @throws IOException
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (this.lock == null) {
+      return;
+    }
+    try {
+      flush();
+      this.documents.close();
+    } finally {
+      this.lock.release();
+      this.lockChannel.close();
+      this.lock = null;
+    }
+  }
+
+
+  /**
+   * Takes the lock for adding documents, the first time one is added.
+   * @throws IOException
+   */
+  private void openForWriting() throws IOException {
+    if (this.lock != null) {
+      return;
+    }
+    this.lockChannel = FileChannel.open(this.directory.resolve(".lock"),
+                                        StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    this.lock = this.lockChannel.tryLock();
+    if (this.lock == null) {
+      this.lockChannel.close();
+      throw new IOException("Index '" + this.directory + "' is being written by another process.");
+    }
+    Path list = this.directory.resolve(DOCUMENTS);
+    this.nextDocument = Files.exists(list) ? Files.readAllLines(list, StandardCharsets.UTF_8).size() : 0;
+    this.documents = Files.newBufferedWriter(list, StandardCharsets.UTF_8,
+                                             StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    List<Path> live = getSegments();
+    for (Path segment : listSegments()) {
+      this.nextSegment = Math.max(this.nextSegment, segmentNumber(segment) + 1);
+      if (!live.contains(segment)) {
+        delete(segment);
+      }
+    }
+  }
+
+
+  /**
+   * Merges segments into one, dropping the mentions of documents that were
+   * added again since.
+   * @param segments - segments to merge, oldest first
+   * @throws IOException
+   */
+  private void merge(final List<Path> segments) throws IOException {
+    readDocuments();
+
+    // Cursors over every segment, by key and then by age
+    PriorityQueue<int[]> cursors = new PriorityQueue<>((a, b) -> {
+      int order = compare(key(segments, a), key(segments, b));
+      return (order != 0) ? order : Integer.compare(a[0], b[0]);
+    });
+    List<Segment> opened = new ArrayList<>();
+    for (int s = 0; s < segments.size(); s++) {
+      Segment segment = this.mapped.get(segments.get(s));
+      opened.add(segment);
+      if (segment.size() > 0) {
+        cursors.add(new int[] { s, 0 });
+      }
+    }
+
+    // Once the merged segment is in place, readers ignore the ones it replaces
+    Path merged = newSegment();
+    try (SegmentWriter writer = new SegmentWriter(merged, segmentNumber(segments.get(0)),
+                                                  segmentNumber(segments.get(segments.size() - 1)))) {
+      int[] pairs = new int[16];
+      while (!cursors.isEmpty()) {
+        byte[] key = key(segments, cursors.peek());
+        int size = 0;
+        while (!cursors.isEmpty() && Arrays.equals(key, key(segments, cursors.peek()))) {
+          int[] cursor = cursors.poll();
+          Segment segment = opened.get(cursor[0]);
+          int count = segment.mentionCount(cursor[1]);
+          for (int j = 0; j < count; j++) {
+            int document = segment.document(cursor[1], j);
+            if (document < this.latest.length && this.latest[document]) {
+              if (size + 2 > pairs.length) {
+                pairs = Arrays.copyOf(pairs, pairs.length * 2);
+              }
+              pairs[size++] = document;
+              pairs[size++] = segment.sentenceNumber(cursor[1], j);
+            }
+          }
+          if (++cursor[1] < segment.size()) {
+            cursors.add(cursor);
+          }
+        }
+        if (size > 0) {
+          writer.add(key, pairs, size / 2);
+        }
+      }
+    }
+
+    for (Path segment : segments) {
+      this.mapped.remove(segment);
+      delete(segment);
+    }
+  }
+
+
+  /**
+   * Deletes a segment that was replaced by a merge.
+   * @param segment - path of the segment
+   */
+  private static void delete(final Path segment) {
+    try {
+      Files.deleteIfExists(segment);
+    } catch (IOException e) {
+      // Still mapped by a reader; removed next time the index is written
+    }
+  }
+
+
+  /**
+   * Gets the key a merge cursor is at.
+   * @param segments - segments being merged
+   * @param cursor - segment index and entry index
+   * @return key bytes
+   */
+  private byte[] key(final List<Path> segments, final int[] cursor) {
+    return this.mapped.get(segments.get(cursor[0])).key(cursor[1]);
+  }
+
+
+  /**
+   * Reads the list of documents again if it changed.
+   * @throws IOException
+   */
+  private void readDocuments() throws IOException {
+    if (this.documents != null) {
+      this.documents.flush();
+    }
+    Path list = this.directory.resolve(DOCUMENTS);
+    long size = Files.exists(list) ? Files.size(list) : 0;
+    if (size == this.documentsSize) {
+      return;
+    }
+    this.paths = (size == 0) ? new ArrayList<>() : Files.readAllLines(list, StandardCharsets.UTF_8);
+    this.latest = new boolean[this.paths.size()];
+    Map<String, Integer> last = new HashMap<>();
+    for (int i = 0; i < this.paths.size(); i++) {
+      last.put(this.paths.get(i), i);
+    }
+    for (int id : last.values()) {
+      this.latest[id] = true;
+    }
+    this.documentsSize = size;
+  }
+
+
+  /**
+   * Gets the segments of the index that are in use, oldest first, and maps
+   * them. Segments replaced by a merge are left out. A segment deleted before
+   * it is mapped was replaced by a merge, so the directory is listed again
+   * to find the merged one.
+   * @return paths of the segments, each in the mapped segments
+   * @throws IOException
+   */
+  private List<Path> getSegments() throws IOException {
+    List<Path> segments = listSegments();
+    List<Segment> opened = new ArrayList<>(segments.size());
+    for (Path path : segments) {
+      Segment segment = this.mapped.get(path);
+      if (segment == null) {
+        try {
+          segment = new Segment(path);
+        } catch (NoSuchFileException e) {
+          return getSegments();
+        }
+        this.mapped.put(path, segment);
+      }
+      opened.add(segment);
+    }
+    this.mapped.keySet().retainAll(segments);
+
+    List<Path> live = new ArrayList<>(segments.size());
+    for (Path path : segments) {
+      int number = segmentNumber(path);
+      boolean replaced = false;
+      for (Segment segment : opened) {
+        replaced |= segment.replaces(number);
+      }
+      if (!replaced) {
+        live.add(path);
+      }
+    }
+    return live;
+  }
+
+
+  /**
+   * Lists every segment file of the index, oldest first, including those
+   * replaced by a merge.
+   * @return paths of the segments
+   * @throws IOException
+   */
+  private List<Path> listSegments() throws IOException {
+    List<Path> segments = new ArrayList<>();
+    try (DirectoryStream<Path> paths = Files.newDirectoryStream(this.directory,
+                                                               SEGMENT_PREFIX + "*" + SEGMENT_EXTENSION)) {
+      for (Path path : paths) {
+        segments.add(path);
+      }
+    }
+    segments.sort((a, b) -> Integer.compare(segmentNumber(a), segmentNumber(b)));
+    return segments;
+  }
+
+
+  /**
+   * Gets the path of the next segment written.
+   * @return path
+   */
+  private Path newSegment() {
+    return this.directory.resolve(SEGMENT_PREFIX + (this.nextSegment++) + SEGMENT_EXTENSION);
+  }
+
+
+  /**
+   * Gets the number of a segment from its name.
+   * @param segment - path of the segment
+   * @return number
+   */
+  private static int segmentNumber(final Path segment) {
+    String name = segment.getFileName().toString();
+    try {
+      return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(),
+                                             name.length() - SEGMENT_EXTENSION.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+
+  /**
+   * Makes the key of an entity.
+   * @param noun - noun of the entity
+   * @param type - type of the entity
+   * @return key
+   */
+  private static String key(final String noun, final String type) {
+    return noun + '\0' + type;
+  }
+
+
+  /**
+   * Compares keys byte by byte, as unsigned bytes (UTF-8 order).
+   * @param a - a key
+   * @param b - another key
+   * @return negative, zero or positive
+   */
+  private static int compare(final byte[] a, final byte[] b) {
+    int length = Math.min(a.length, b.length);
+    for (int i = 0; i < length; i++) {
+      int order = (a[i] & 0xff) - (b[i] & 0xff);
+      if (order != 0) {
+        return order;
+      }
+    }
+    return a.length - b.length;
+  }
+
+
+  /**
+   * Mentions of an entity not written yet, as (document, sentence number) pairs.
+   */
+  private static class Mentions {
+
+
+    /** Document ids and sentence numbers, one after the other */
+    private int[] pairs = new int[4];
+
+    /** Number of mentions */
+    private int size;
+
+
+    /**
+     * Adds a mention.
+     * @param document - document id
+     * @param sentenceNumber - sentence number
+     */
+    void add(final int document, final int sentenceNumber) {
+      if (this.size * 2 + 2 > this.pairs.length) {
+        this.pairs = Arrays.copyOf(this.pairs, this.pairs.length * 2);
+      }
+      this.pairs[this.size * 2] = document;
+      this.pairs[this.size * 2 + 1] = sentenceNumber;
+      ++this.size;
+    }
+  }
+
+
+  /**
+   * Writes a segment, entry by entry in key order, to a temporary file that
+   * is renamed into place once complete.
+   */
+  private static class SegmentWriter implements Closeable {
+
+
+    /** Where the segment ends up */
+    private Path path;
+
+    /** Temporary file being written */
+    private Path temp;
+
+    /** Output to the temporary file */
+    private DataOutputStream out;
+
+    /** Offset of each entry */
+    private int[] offsets = new int[64];
+
+    /** Number of entries */
+    private int size;
+
+
+    /**
+     * Constructor.
+     * @param path - where the segment ends up
+     * @param firstReplaced - first number of the segments it replaces
+     * @param lastReplaced - last number of the segments it replaces; below the first for none
+     * @throws IOException
+     */
+    SegmentWriter(final Path path, final int firstReplaced, final int lastReplaced) throws IOException {
+      this.path = path;
+      this.temp = path.resolveSibling(path.getFileName() + ".tmp");
+      this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(this.temp)));
+      this.out.writeInt(MAGIC);
+      this.out.writeInt(VERSION);
+      this.out.writeInt(firstReplaced);
+      this.out.writeInt(lastReplaced);
+    }
+
+
+    /**
+     * Adds an entry.
+     * @param key - key of the entity
+     * @param pairs - document ids and sentence numbers, one after the other
+     * @param count - number of mentions
+     * @throws IOException
+     */
+    void add(final byte[] key, final int[] pairs, final int count) throws IOException {
+      if (this.size == this.offsets.length) {
+        this.offsets = Arrays.copyOf(this.offsets, this.size * 2);
+      }
+      this.offsets[this.size++] = this.out.size();
+      this.out.writeInt(key.length);
+      this.out.write(key);
+      this.out.writeInt(count);
+      for (int i = 0; i < count * 2; i++) {
+        this.out.writeInt(pairs[i]);
+      }
+      if (this.out.size() == Integer.MAX_VALUE) {
+        throw new IOException("Index segment is too large: " + this.path);
+      }
+    }
+
+
+    @Override
+    public void close() throws IOException {
+      int table = this.out.size();
+      for (int i = 0; i < this.size; i++) {
+        this.out.writeInt(this.offsets[i]);
+      }
+      this.out.writeInt(this.size);
+      this.out.writeInt(table);
+      this.out.close();
+      Files.move(this.temp, this.path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+
+  /**
+   * A memory-mapped segment.
+   */
+  private static class Segment {
+
+
+    /** Contents of the segment */
+    private ByteBuffer buffer;
+
+    /** Number of entries */
+    private int size;
+
+    /** Offset of the table of entry offsets */
+    private int table;
+
+    /** First and last number of the segments it replaces */
+    private int firstReplaced, lastReplaced;
+
+
+    /**
+     * Constructor.
+     * @param path - file of the segment
+     * @throws IOException
+     */
+    Segment(final Path path) throws IOException {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        this.buffer = buffer;
+      }
+      int limit = this.buffer.limit();
+      if (limit < 24 || this.buffer.getInt(0) != MAGIC) {
+        throw new IOException("Not an index segment: " + path);
+      }
+      if (this.buffer.getInt(4) != VERSION) {
+        throw new IOException("Unsupported index segment version: " + path);
+      }
+      this.firstReplaced = this.buffer.getInt(8);
+      this.lastReplaced = this.buffer.getInt(12);
+      this.size = this.buffer.getInt(limit - 8);
+      this.table = this.buffer.getInt(limit - 4);
+      if (this.size < 0 || this.table < 16 || this.table + 4L * this.size != limit - 8) {
+        throw new IOException("Corrupt index segment: " + path);
+      }
+    }
+
+
+    /**
+     * Gets the number of entries.
+     * @return number of entities
+     */
+    int size() {
+      return this.size;
+    }
+
+
+    /**
+     * Checks whether this segment replaces another one, i.e., was merged from it.
+     * @param number - number of the other segment
+     * @return true if it does
+     */
+    boolean replaces(final int number) {
+      return this.firstReplaced <= number && number <= this.lastReplaced;
+    }
+
+
+    /**
+     * Finds the first entry whose key is not less than a prefix.
+     * @param prefix - key prefix
+     * @return index of the entry, or size() if there is none
+     */
+    int lowerBound(final byte[] prefix) {
+      int low = 0;
+      int high = this.size;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (compareKey(middle, prefix) < 0) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+
+
+    /**
+     * Checks whether the key of an entry starts with a prefix.
+     * @param index - index of the entry
+     * @param prefix - key prefix
+     * @return true if it does
+     */
+    boolean startsWith(final int index, final byte[] prefix) {
+      int offset = entry(index);
+      if (this.buffer.getInt(offset) < prefix.length) {
+        return false;
+      }
+      for (int i = 0; i < prefix.length; i++) {
+        if (this.buffer.get(offset + 4 + i) != prefix[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+
+    /**
+     * Gets the length of the key of an entry.
+     * @param index - index of the entry
+     * @return length in bytes
+     */
+    int keyLength(final int index) {
+      return this.buffer.getInt(entry(index));
+    }
+
+
+    /**
+     * Gets the key of an entry.
+     * @param index - index of the entry
+     * @return key bytes
+     */
+    byte[] key(final int index) {
+      int offset = entry(index);
+      byte[] key = new byte[this.buffer.getInt(offset)];
+      for (int i = 0; i < key.length; i++) {
+        key[i] = this.buffer.get(offset + 4 + i);
+      }
+      return key;
+    }
+
+
+    /**
+     * Gets the type of the entity of an entry.
+     * @param index - index of the entry
+     * @param start - length of the noun and its separator, in bytes
+     * @return type
+     */
+    String typeOf(final int index, final int start) {
+      byte[] key = key(index);
+      return new String(key, start, key.length - start, StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * Gets the number of mentions of an entry.
+     * @param index - index of the entry
+     * @return number of mentions
+     */
+    int mentionCount(final int index) {
+      int offset = entry(index);
+      return this.buffer.getInt(offset + 4 + this.buffer.getInt(offset));
+    }
+
+
+    /**
+     * Gets the document of a mention.
+     * @param index - index of the entry
+     * @param mention - index of the mention
+     * @return document id
+     */
+    int document(final int index, final int mention) {
+      return this.buffer.getInt(mentions(index) + mention * 8);
+    }
+
+
+    /**
+     * Gets the sentence number of a mention.
+     * @param index - index of the entry
+     * @param mention - index of the mention
+     * @return sentence number
+     */
+    int sentenceNumber(final int index, final int mention) {
+      return this.buffer.getInt(mentions(index) + mention * 8 + 4);
+    }
+
+
+    /**
+     * Gets the offset of an entry.
+     * @param index - index of the entry
+     * @return offset
+     */
+    private int entry(final int index) {
+      return this.buffer.getInt(this.table + index * 4);
+    }
+
+
+    /**
+     * Gets the offset of the first mention of an entry.
+     * @param index - index of the entry
+     * @return offset
+     */
+    private int mentions(final int index) {
+      int offset = entry(index);
+      return offset + 8 + this.buffer.getInt(offset);
+    }
+
+
+    /**
+     * Compares the key of an entry with a prefix.
+     * @param index - index of the entry
+     * @param prefix - key prefix
+     * @return negative, zero or positive
+     */
+    private int compareKey(final int index, final byte[] prefix) {
+      int offset = entry(index);
+      int length = this.buffer.getInt(offset);
+      int common = Math.min(length, prefix.length);
+      for (int i = 0; i < common; i++) {
+        int order = (this.buffer.get(offset + 4 + i) & 0xff) - (prefix[i] & 0xff);
+        if (order != 0) {
+          return order;
+        }
+      }
+      return length - prefix.length;
+    }
+  }
+}
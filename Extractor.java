@@ -1,19 +1,18 @@
-import edu.stanford.nlp.naturalli.NaturalLogicAnnotations;
-
 import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreAnnotations.CharacterOffsetBeginAnnotation;
 import edu.stanford.nlp.ling.CoreAnnotations.NamedEntityTagAnnotation;
+import edu.stanford.nlp.ling.CoreAnnotations.NormalizedNamedEntityTagAnnotation;
 import edu.stanford.nlp.ling.CoreAnnotations.TextAnnotation;
 import edu.stanford.nlp.ling.CoreAnnotations.TokensAnnotation;
-
 import edu.stanford.nlp.pipeline.Annotation;
-import edu.stanford.nlp.pipeline.StanfordCoreNLP;
 
-import edu.stanford.nlp.ie.util.RelationTriple;
 import edu.stanford.nlp.util.CoreMap;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import java.util.function.Function;
 
 
 /**
@@ -21,15 +20,28 @@ import java.util.*;
  * Triples: stored in Network.
  * Named entity information: stored in EntitiesList.
  */
+@SuppressWarnings("try")
 class Extractor {
 
 
+  /** Text of a sentence that is longer than this is not carried to the next window */
+  private static final int MAX_CARRIED_CHARS = 1 << 20;
+
   /** An instance of the Network containing all metadata for text */
   private Network network;
 
   /** Contains all of named entity recognition information in LinkedHashMap */
   private EntitiesList ner;
 
+  /** Finds the triples of each annotated sentence */
+  private TripleSource tripleSource;
+
+  /** Decides which triples are kept while they are extracted */
+  private TripleFilter tripleFilter;
+
+  /** Whether annotation was degraded to stay within the budget */
+  private boolean degraded;
+
 
  /**
   * Constructor.
@@ -39,95 +51,571 @@ class Extractor {
   * @param document - valid file containing the input text
   */
   Extractor(File document) throws Exception {
+    this(document, new Pipeline());
+  }
+
+
+ /**
+  * Constructor.
+  * Reads in file and processes it with an already loaded pipeline.
+  * @param document - valid file containing the input text
+  * @param pipeline - pipeline used to annotate the text
+  */
+  Extractor(File document, Pipeline pipeline) throws Exception {
+    this(Fyles.getText(document), pipeline, null);
+  }
+
+
+ /**
+  * Constructor.
+  * Reads in file window by window and processes each window before reading
+  * the next, so that files of any size can be processed.
+  * @param document - valid file containing the input text
+  * @param windowChars - minimum size of a window in characters
+  * @param pipeline - pipeline used to annotate the text
+  */
+  Extractor(File document, int windowChars, Pipeline pipeline) throws Exception {
 
     this.network = new Network();
     this.ner = new EntitiesList();
-
-    // Read and store file
-    String text = Fyles.getText(document);
+    this.tripleSource = pipeline.getTripleSource();
+    this.tripleFilter = pipeline.getTripleFilter();
 
     // Extract the triples
-    processText(text);
+    processWindows(document, windowChars, pipeline);
+  }
+
+
+ /**
+  * Constructor.
+  * Processes text that has already been read in.
+  * @param text - normalized text to be processed
+  * @param pipeline - pipeline used to annotate the text
+  */
+  Extractor(String text, Pipeline pipeline) throws Exception {
+    this(text, pipeline, null);
+  }
+
+
+ /**
+  * Constructor.
+  * Processes text that has already been read in, unless it is found in the
+  * cache.
+  * @param text - normalized text to be processed
+  * @param pipeline - pipeline used to annotate the text
+  * @param cache - (optional) cache of previously extracted text
+  */
+  Extractor(String text, Pipeline pipeline, NetworkCache cache) throws Exception {
+    this(text, pipeline, cache, null);
+  }
+
+
+ /**
+  * Constructor.
+  * Processes a version of a story: only the sentences that are not in the
+  * previous version of the story (stored in the cache) are annotated, and
+  * the rest are taken from the previous version. The text is processed
+  * whole if there is no previous version.
+  * @param text - normalized text to be processed
+  * @param pipeline - pipeline used to annotate the text
+  * @param cache - (optional) cache of previously extracted text; required
+  *                to keep the previous version of a story
+  * @param story - (optional) id of the story the text is a version of
+  */
+  Extractor(String text, Pipeline pipeline, NetworkCache cache, String story) throws Exception {
+    this(text, pipeline, cache, story, null);
+  }
+
+
+ /**
+  * Constructor.
+  * Processes text that has already been read in, unless it is found in the
+  * cache or is a near-duplicate of a document extracted earlier, in which
+  * case that document's network and named entities are reused. Versions of
+  * a story are not checked for near-duplicates, since they are near-duplicates
+  * of the previous version.
+  * @param text - normalized text to be processed
+  * @param pipeline - pipeline used to annotate the text
+  * @param cache - (optional) cache of previously extracted text; required
+  *                to keep the previous version of a story
+  * @param story - (optional) id of the story the text is a version of
+  * @param duplicates - (optional) documents extracted earlier, to find near-duplicates in
+  */
+  Extractor(String text,
+            Pipeline pipeline,
+            NetworkCache cache,
+            String story,
+            DuplicateDetector duplicates) throws Exception {
+
+    this.network = new Network();
+    this.ner = new EntitiesList();
+    this.tripleSource = pipeline.getTripleSource();
+    this.tripleFilter = pipeline.getTripleFilter();
+
+    if (story != null && cache == null) {
+      throw new IllegalArgumentException("Stories are kept in the cache, which is not enabled.");
+    }
+
+    // Check for text that has already been extracted
+    String key = null;
+    String storyKey = null;
+    Metadata metadata = null;
+    if (cache != null) {
+      key = cache.getKey(text, pipeline.getConfiguration());
+      metadata = cache.load(key);
+      if (story != null) {
+        storyKey = cache.getStoryKey(story, pipeline.getConfiguration());
+      }
+    }
+
+    // Check for a near-duplicate of text that has already been extracted
+    int[] signature = null;
+    if (duplicates != null && story == null && metadata == null) {
+      try (Stats.Stage stage = Stats.begin("dedupe")) {
+        signature = DuplicateDetector.sign(text);
+        metadata = duplicates.find(signature);
+      }
+      if (metadata != null) {
+        Stats.count("near-duplicates", 1);
+        if (cache != null) {
+          cache.store(key, metadata.getNetwork(), metadata.getNER());
+        }
+        signature = null;
+      }
+    }
+
+    if (metadata != null) {
+      this.network = metadata.getNetwork();
+      this.ner = metadata.getNER();
+    } else {
+      // Extract the triples, from the changes only if there is a previous version
+      Metadata previous = (storyKey == null) ? null : cache.load(storyKey);
+      if (previous != null) {
+        processUpdate(text, pipeline, previous.getNetwork());
+      } else {
+        processText(text, pipeline);
+      }
+      if (cache != null && !this.degraded) {
+        cache.store(key, this.network, this.ner);
+      }
+    }
+
+    // Keep this text for its near-duplicates to reuse
+    if (signature != null && !this.degraded) {
+      duplicates.add(signature, this.network, this.ner);
+    }
+
+    // Keep this version to compare the next one with
+    if (storyKey != null && !this.degraded) {
+      cache.store(storyKey, this.network, this.ner);
+    }
+  }
+
+
+ /**
+  * Constructor.
+  * Extracts sentences that have already been annotated.
+  * @param sentences - annotated sentences; emptied as they are extracted
+  * @param tripleSource - finds the triples of each sentence
+  * @param tripleFilter - decides which triples are kept
+  */
+  Extractor(List<CoreMap> sentences, TripleSource tripleSource, TripleFilter tripleFilter) {
+
+    this.network = new Network();
+    this.ner = new EntitiesList();
+    this.tripleSource = tripleSource;
+    this.tripleFilter = tripleFilter;
+
+    extractData(sentences, 1);
   }
 
 
  /**
   * Extracts triples and NER, stores the information in separate maps, prints
   * the information to standard out and (optionally) writes data to file.
+  * Sentences found in the pipeline's memo (if it has one) are not annotated.
   * @param text - text that is to be processed
+  * @param pipeline - pipeline used to annotate the text
   * @throws Exception
   */
-  private void processText(final String text) throws Exception {
+  private void processText(final String text, final Pipeline pipeline) throws Exception {
 
-    // Ensure there is text to process
-    if (text == null) {
-      throw new Exception("Text was null.");
+    if (pipeline.getSentenceMemo() != null) {
+      processSentences(text, pipeline, null);
+      return;
     }
 
-    // Create the Stanford CoreNLP pipeline
-    Properties props = new Properties();
-    String pipe = "tokenize, ssplit, pos, parse, depparse, lemma, ner, dcoref, natlog, openie";
-    props.setProperty("annotators", pipe);
-    StanfordCoreNLP pipeline = new StanfordCoreNLP(props);
-    Annotation doc = new Annotation(text);
-    pipeline.annotate(doc);
+    Stats.count("characters", text.length());
+
+    // Annotate the text, keeping only its sentences: the document's
+    // coreference chains and token list are released right away
+    Annotation doc = pipeline.annotate(text);
+    checkDegraded(doc);
+    List<CoreMap> sentences = doc.get(CoreAnnotations.SentencesAnnotation.class);
+    doc = null;
 
     // Get NER data, extract triples, and store the data
-    extractData(doc);
+    extractData(sentences, 1);
   }
 
 
  /**
-  * Extracts the triples, NER information, and stores it in triples map.
-  * @param doc - annotated document
+  * Processes a new version of a story. Each sentence whose text is the same
+  * as one of the previous version is taken from the previous version
+  * (renumbered); only the new or edited sentences are annotated and
+  * extracted.
+  * @param text - text of the new version
+  * @param pipeline - pipeline used to annotate the text
+  * @param previous - network extracted from the previous version
+  * @throws Exception
   */
-  private void extractData(final Annotation doc) {
-    
-    // Loop over sentences in the document
+  private void processUpdate(final String text,
+                             final Pipeline pipeline,
+                             final Network previous) throws Exception {
+
+    // Sentences of the previous version, by text
+    Map<String, Deque<Sentence>> unchanged = new HashMap<>();
+    for (Sentence sentence : previous) {
+      unchanged.computeIfAbsent(sentence.getSentence(), key -> new ArrayDeque<>()).add(sentence);
+    }
+
+    processSentences(text, pipeline, sentence -> {
+      Deque<Sentence> matches = unchanged.get(sentence);
+      return (matches == null) ? null : matches.poll();
+    });
+  }
+
+
+ /**
+  * Splits text into sentences and annotates only the sentences that have
+  * been extracted before: from a previous version of the text, or from the
+  * pipeline's memo (if it has one). The others are taken as they are
+  * (renumbered), and newly extracted sentences are added to the memo.
+  * Document-level annotators (coreference) only see the annotated sentences.
+  * @param text - text that is to be processed
+  * @param pipeline - pipeline used to annotate the text
+  * @param previous - (optional) finds a sentence of a previous version by
+  *                   its text, or returns null
+  * @throws Exception
+  */
+  private void processSentences(final String text,
+                                final Pipeline pipeline,
+                                final Function<String, Sentence> previous) throws Exception {
+
+    Stats.count("characters", text.length());
+    SentenceMemo memo = pipeline.getSentenceMemo();
+
+    // Match the sentences, in order
+    List<CoreMap> sentences = pipeline.split(text).get(CoreAnnotations.SentencesAnnotation.class);
+    Sentence[] reused = new Sentence[sentences.size()];
+    List<CoreMap> changed = new ArrayList<>();
+    int memoized = 0;
+    for (int i = 0; i < sentences.size(); i++) {
+      String sentence = sentences.get(i).toString();
+      if (previous != null) {
+        reused[i] = previous.apply(sentence);
+      }
+      if (reused[i] == null && memo != null) {
+        reused[i] = memo.get(sentence);
+        if (reused[i] != null) {
+          ++memoized;
+        }
+      }
+      if (reused[i] == null) {
+        changed.add(sentences.get(i));
+      }
+    }
+    if (previous != null) {
+      Stats.count("sentences reused", sentences.size() - changed.size() - memoized);
+    }
+    if (memo != null) {
+      Stats.count("sentences memoized", memoized);
+    }
+
+    // Annotate the other sentences in place; only the list of sentences is
+    // kept, so extraction can release them one by one
+    if (!changed.isEmpty()) {
+      Annotation doc = Pipeline.asDocument(text, changed);
+      pipeline.annotateSplit(doc);
+      checkDegraded(doc);
+    }
+    changed = null;
+
+    try (Stats.Stage stage = Stats.begin("extract")) {
+      Stats.count("sentences", sentences.size());
+      ListIterator<CoreMap> remaining = sentences.listIterator();
+      while (remaining.hasNext()) {
+        int sentenceNumber = remaining.nextIndex() + 1;
+        CoreMap sent = remaining.next();
+        remaining.set(null);
+        if (reused[sentenceNumber - 1] != null) {
+          addSentence(reused[sentenceNumber - 1], sentenceNumber);
+        } else {
+          boolean degraded = sent.containsKey(Pipeline.DegradedAnnotation.class);
+          Sentence sentence = extractSentence(sent, sentenceNumber);
+          if (memo != null && !degraded) {
+            memo.put(sentence);
+          }
+        }
+      }
+    }
+  }
+
+
+ /**
+  * Adds a sentence extracted earlier under a new number, with its named
+  * entities, dates and triples.
+  * @param previous - sentence extracted earlier
+  * @param sentenceNumber - number of the sentence in this text
+  */
+  private void addSentence(final Sentence previous, final int sentenceNumber) {
+    Sentence sentence = previous.copy(sentenceNumber);
+    for (Entity entity : sentence.getEntities().getEntities()) {
+      this.ner.add(entity.getNoun(), entity.getType(), sentenceNumber);
+    }
+    this.network.add(sentenceNumber, sentence);
+  }
+
+
+ /**
+  * Reads a file window by window, annotating and extracting each window
+  * before the next one is read, so memory does not grow with file size.
+  * The last sentence of a window may continue in the next window, so it is
+  * carried over and split again together with the next window.
+  * @param document - file containing the input text
+  * @param windowChars - minimum size of a window in characters
+  * @param pipeline - pipeline used to annotate the text
+  * @throws Exception
+  */
+  private void processWindows(final File document,
+                              final int windowChars,
+                              final Pipeline pipeline) throws Exception {
+
     int sentenceNumber = 1;
-    for (CoreMap sent : doc.get(CoreAnnotations.SentencesAnnotation.class)) {
+    String carried = "";
+
+    try (TextWindows windows = new TextWindows(document, windowChars)) {
+      String window = readWindow(windows);
+      while (window != null) {
+
+        String text = carried + window;
+        window = readWindow(windows);
+
+        // Split into sentences, holding back the last one unless this is the end
+        List<CoreMap> sentences = pipeline.split(text).get(CoreAnnotations.SentencesAnnotation.class);
+        carried = "";
+        int end = text.length();
+        if (window != null && sentences.size() > 1) {
+          int begin = sentences.get(sentences.size() - 1).get(CharacterOffsetBeginAnnotation.class);
+          if (text.length() - begin < MAX_CARRIED_CHARS) {
+            sentences = new ArrayList<>(sentences.subList(0, sentences.size() - 1));
+            end = begin;
+            carried = text.substring(begin);
+          }
+        }
+
+        // Annotate and extract the complete sentences; only the list of
+        // sentences is kept, so extraction can release them one by one
+        Annotation doc = Pipeline.asDocument(text.substring(0, end), sentences);
+        pipeline.annotateSplit(doc);
+        checkDegraded(doc);
+        doc = null;
+        sentenceNumber = extractData(sentences, sentenceNumber);
+      }
+    }
+  }
+
+
+ /**
+  * Extracts the triples, NER information, and stores it in triples map.
+  * Each sentence is removed from the list (set to null) as soon as it has
+  * been read, so its parse trees, dependency graphs and tokens can be
+  * collected while the rest of the document is extracted.
+  * @param sentences - annotated sentences; emptied of every sentence
+  * @param sentenceNumber - number of the first sentence
+  * @return number of the sentence following the last one
+  */
+  private int extractData(final List<CoreMap> sentences, int sentenceNumber) {
+
+    try (Stats.Stage stage = Stats.begin("extract")) {
+      Stats.count("sentences", sentences.size());
+
+      // Loop over sentences in the document
+      ListIterator<CoreMap> remaining = sentences.listIterator();
+      while (remaining.hasNext()) {
+        CoreMap sent = remaining.next();
+        remaining.set(null);
+        extractSentence(sent, sentenceNumber);
+
+        // Increment sentence number
+        sentenceNumber++;
+      }
+    }
+    return sentenceNumber;
+  }
 
-      EntitiesList entities = new EntitiesList();
 
-      // Traversing the words in the current sentence
-      for (CoreLabel token : sent.get(TokensAnnotation.class)) {
+ /**
+  * Extracts the named entities, dates and triples of an annotated sentence
+  * and adds the sentence to the network.
+  * @param sent - annotated sentence
+  * @param sentenceNumber - number of the sentence
+  * @return the extracted sentence
+  */
+  private Sentence extractSentence(final CoreMap sent, final int sentenceNumber) {
+
+    // Store the named entities of the sentence
+    EntitiesList entities = extractEntities(sent.get(TokensAnnotation.class), sentenceNumber);
+
+    // Create a sentence object
+    Sentence sentence = new Sentence(sent.toString());
+    sentence.addEntities(entities);
+    sentence.setTimes(extractTimes(sent.get(TokensAnnotation.class)));
+
+    // Find the triples worth keeping; a degraded sentence only has the
+    // part-of-speech tags to find them in
+    TripleSource source = this.tripleSource;
+    if (sent.containsKey(Pipeline.DegradedAnnotation.class)) {
+      source = TripleSource.PATTERNS;
+      this.degraded = true;
+      Stats.count("sentences degraded", 1);
+    }
+    List<Triple> triples = source.extract(sent, this.tripleFilter);
+    Stats.count("triples kept", triples.size());
+
+    // Store sentences and associated Triples inside triples object
+    sentence.setAllTriples(triples);
+    this.network.add(sentenceNumber, sentence);
+    return sentence;
+  }
 
-        String word = token.get(TextAnnotation.class);
-        String namedEntity = token.get(NamedEntityTagAnnotation.class);
 
-        // Store NER if NER exists (also omitting ',' -> date error)
-        if ((namedEntity.length() != 1) && !word.equals(","))
-          entities.add(word, namedEntity, sentenceNumber);
-          this.ner.add(word, namedEntity, sentenceNumber);
+  /**
+   * Reads the next window of a file.
+   * @param windows - windows of the file
+   * @return text of the window, or null at the end of the file
+   * @throws IOException
+   */
+  private static String readWindow(final TextWindows windows) throws IOException {
+    try (Stats.Stage stage = Stats.begin("read")) {
+      String window = windows.next();
+      if (window != null) {
+        Stats.count("characters", window.length());
       }
+      return window;
+    }
+  }
 
-      // Get the OpenIE triples for the sentence
-      Collection<RelationTriple> relationTriples =
-        sent.get(NaturalLogicAnnotations.RelationTriplesAnnotation.class);
 
-      // This is where we'll store the extracted triples
-      List<Triple> triples = new ArrayList<>();
+  /**
+   * Extracts the named entities of a sentence, adding them to the named
+   * entities of the document as well. Each run of tokens with the same
+   * tag (and normalized value) is one entity, e.g., "Leo Tolstoy" rather
+   * than "Leo" and "Tolstoy". Tokens tagged 'O' are not entities, and a
+   * comma does not start or end one (e.g., "March 12 , 1990" keeps its comma).
+   * @param tokens - tokens of the sentence
+   * @param sentenceNumber - number of the sentence
+   * @return named entities of the sentence
+   */
+  private EntitiesList extractEntities(final List<CoreLabel> tokens, final int sentenceNumber) {
 
-      // Create a sentence object
-      Sentence sentence = new Sentence(sent.toString());
-      sentence.addEntities(entities);
+    EntitiesList entities = new EntitiesList();
 
-      // Store the triples
-      for (RelationTriple t : relationTriples) {
-        Triple triple = new Triple(t.subjectGloss(),
-                                   t.relationGloss(),
-                                   t.objectGloss(),
-                                   t.confidenceGloss());
-        triples.add(triple);
+    int i = 0;
+    while (i < tokens.size()) {
+      CoreLabel token = tokens.get(i++);
+      String namedEntity = token.get(NamedEntityTagAnnotation.class);
+      if (namedEntity == null || namedEntity.length() == 1 || isComma(token)) {
+        continue;
       }
 
-      // Store sentences and associated Triples inside triples object
-      sentence.setAllTriples(triples);
-      this.network.add(sentenceNumber, sentence);
+      // Extend the span over the following tokens of the same entity
+      String value = token.get(NormalizedNamedEntityTagAnnotation.class);
+      int end = i;
+      while (end < tokens.size()
+             && namedEntity.equals(tokens.get(end).get(NamedEntityTagAnnotation.class))
+             && Objects.equals(value, tokens.get(end).get(NormalizedNamedEntityTagAnnotation.class))) {
+        ++end;
+      }
+      int last = end;
+      while (isComma(tokens.get(last - 1))) {
+        --last;
+      }
 
-      // Increment sentence number
-      sentenceNumber++;
+      StringBuilder noun = new StringBuilder(token.get(TextAnnotation.class));
+      for (int j = i; j < last; j++) {
+        noun.append(' ').append(tokens.get(j).get(TextAnnotation.class));
+      }
+      entities.add(noun.toString(), namedEntity, sentenceNumber);
+      this.ner.add(noun.toString(), namedEntity, sentenceNumber);
+      i = end;
     }
+    return entities;
+  }
+
+
+  /**
+   * Checks whether a token is a comma.
+   * @param token - token
+   * @return true if it is
+   */
+  private static boolean isComma(final CoreLabel token) {
+    return ",".equals(token.get(TextAnnotation.class));
+  }
+
+
+  /**
+   * Extracts the dates of a sentence: each run of DATE or TIME tokens that
+   * share a normalized value becomes one TimeExpression.
+   * @param tokens - tokens of the sentence
+   * @return dates in the order they appear
+   */
+  private static List<TimeExpression> extractTimes(final List<CoreLabel> tokens) {
+
+    List<TimeExpression> times = new ArrayList<>();
+
+    int i = 0;
+    while (i < tokens.size()) {
+      CoreLabel token = tokens.get(i++);
+      String namedEntity = token.get(NamedEntityTagAnnotation.class);
+      if (!"DATE".equals(namedEntity) && !"TIME".equals(namedEntity)) {
+        continue;
+      }
+
+      // Extend the span over the following tokens of the same expression
+      String value = token.get(NormalizedNamedEntityTagAnnotation.class);
+      StringBuilder text = new StringBuilder(token.get(TextAnnotation.class));
+      while (i < tokens.size()
+             && namedEntity.equals(tokens.get(i).get(NamedEntityTagAnnotation.class))
+             && Objects.equals(value, tokens.get(i).get(NormalizedNamedEntityTagAnnotation.class))) {
+        text.append(' ').append(tokens.get(i++).get(TextAnnotation.class));
+      }
+      times.add(new TimeExpression(text.toString(), value));
+    }
+    return times;
+  }
+
+
+  /**
+   * Marks the extraction as degraded if the document-level annotators were
+   * skipped to stay within the budget.
+   * @param doc - annotated document
+   */
+  private void checkDegraded(final Annotation doc) {
+    if (doc.containsKey(Pipeline.DegradedAnnotation.class)) {
+      this.degraded = true;
+    }
+  }
+
+
+  /**
+   * Checks whether annotation was degraded to stay within the budget (see
+   * Budget): some sentences only got the cheap annotators, or coreference
+   * was skipped. Degraded extractions are not cached.
+   * @return true if it was degraded
+   */
+  boolean isDegraded() {
+    return this.degraded;
   }
 
 
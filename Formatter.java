@@ -4,6 +4,30 @@
 class Formatter {
 
 
+  /**
+   * Spacing rules for the text produced by Stanford's Open Information
+   * Extractor, applied one after another. In a pattern, ' ' stands for any
+   * whitespace character (regex \s) and '*' for any word character (\w).
+   */
+  private static final String[][] RULES = {
+    { " 's ",  "'s "  },
+    { " 'd ",  "'d "  },
+    { " 'ed ", "'ed " },
+    { " 're ", "'re " },
+    { " , ",   ", "   },
+    { " ; ",   "; "   },
+    { "*s ' ", "s' "  },
+    { "$ ",    "$"    },
+    { " % ",   "% "   }
+  };
+
+  /** Builders larger than this are not kept for the next sentence */
+  private static final int MAX_RETAINED_CHARS = 1 << 16;
+
+  /** Each thread reuses its own normalizer */
+  private static final ThreadLocal<Normalizer> NORMALIZER = ThreadLocal.withInitial(Normalizer::new);
+
+
   /**
    * Formats the entire sentence
    * @param actor - actor of the triple
@@ -12,41 +36,29 @@ class Formatter {
    * @return formatted sentence
    */
   static String formatSentence(String actor, String action, String receiver) {
-    String sentence = formatActor(actor) + " " + formatAction(action) + " " + formatReceiver(receiver) + ". ";
-    return removeExtraSpaces(sentence);
-  }
-
-
-  /**
-   * Removes weird spaces created by Stanford's Open Information Extractor
-   *
-   * @param sentence - the sentence to be formatted
-   * @return the formatted sentence
-   */
-  private static String removeExtraSpaces(String sentence) {
-    sentence = sentence.replaceAll("\\s's\\s", "'s ");
-    sentence = sentence.replaceAll("\\s'd\\s", "'d ");
-    sentence = sentence.replaceAll("\\s'ed\\s", "'ed ");
-    sentence = sentence.replaceAll("\\s're\\s", "'re ");
-    sentence = sentence.replaceAll("\\s,\\s", ", ");
-    sentence = sentence.replaceAll("\\s;\\s", "; ");
-    sentence = sentence.replaceAll("\\ws\\s'\\s", "s' ");
-    sentence = sentence.replaceAll("\\Q$\\E\\s", "\\$");
-    sentence = sentence.replaceAll("\\s%\\s", "% ");
-    return sentence;
+    Normalizer sentence = NORMALIZER.get();
+    formatActor(sentence, actor);
+    sentence.append(" ");
+    sentence.append(formatAction(action));
+    sentence.append(" ");
+    sentence.append(formatReceiver(receiver));
+    sentence.append(". ");
+    return sentence.finish();
   }
 
 
   /**
-   * Formats the actor of the triple
-   * @param string - string to be capitalized
-   * @return string capitalized
+   * Formats the actor of the triple, capitalizing its first letter
+   * @param sentence - normalizer the actor is written to
+   * @param string - actor of the triple
    */
-  private static String formatActor (String string) {
-    if (!Character.isUpperCase(string.charAt(0))) {
-      return capitalize(string);
+  private static void formatActor (Normalizer sentence, String string) {
+    char first = string.charAt(0);
+    if (!Character.isUpperCase(first)) {
+      first = Character.toUpperCase(first);
     }
-    return string;
+    sentence.append(first);
+    sentence.append(string, 1);
   }
 
 
@@ -71,12 +83,247 @@ class Formatter {
 
 
   /**
-   * Capitalizing the first letter of a String
+   * Removes weird spaces created by Stanford's Open Information Extractor.
+   * Every rule is applied in a single scan: each rule passes its output on to
+   * the next one character by character, and the last one writes into a
+   * reusable builder. The result is the same as replacing each rule's
+   * pattern throughout the sentence, one rule after another.
    *
-   * @param string - String that will have its first character capitalized
-   * @return capitalized string
+   * Every pattern contains one of the characters in TRIGGERS and no
+   * replacement adds one, so a sentence without any of them is left as is.
    */
-  private static String capitalize(String string) {
-    return Character.toUpperCase(string.charAt(0)) + string.substring(1);
+  private static class Normalizer {
+
+
+    /** Characters without which no rule can match */
+    private static final String TRIGGERS = "',;$%";
+
+    /** First rule the characters of the sentence are passed to */
+    private Rule first;
+
+    /** The sentence before the rules are applied */
+    private StringBuilder input = new StringBuilder();
+
+    /** The formatted sentence */
+    private StringBuilder output = new StringBuilder();
+
+    /** Whether the sentence has any of the TRIGGERS */
+    private boolean triggered = false;
+
+
+    /**
+     * Constructor.
+     * Chains the rules together.
+     */
+    Normalizer() {
+      Rule next = null;
+      for (int i = RULES.length - 1; i >= 0; i--) {
+        next = new Rule(RULES[i][0], RULES[i][1], next, this.output);
+      }
+      this.first = next;
+    }
+
+
+    /**
+     * Adds a character to the sentence.
+     * @param c - character
+     */
+    void append(final char c) {
+      this.input.append(c);
+      this.triggered |= TRIGGERS.indexOf(c) >= 0;
+    }
+
+
+    /**
+     * Adds text to the sentence.
+     * @param string - text
+     */
+    void append(final String string) {
+      append(string, 0);
+    }
+
+
+    /**
+     * Adds the end of a text to the sentence.
+     * @param string - text
+     * @param begin - index of the first character added
+     */
+    void append(final String string, final int begin) {
+      for (int i = begin; i < string.length(); i++) {
+        append(string.charAt(i));
+      }
+    }
+
+
+    /**
+     * Applies the rules and readies the normalizer for the next sentence.
+     * @return formatted sentence
+     */
+    String finish() {
+      String sentence;
+      if (this.triggered) {
+        for (int i = 0; i < this.input.length(); i++) {
+          this.first.accept(this.input.charAt(i));
+        }
+        this.first.finish();
+        sentence = this.output.toString();
+      } else {
+        sentence = this.input.toString();
+      }
+      clear(this.input);
+      clear(this.output);
+      this.triggered = false;
+      return sentence;
+    }
+
+
+    /**
+     * Empties a builder, letting go of its memory if it has grown large.
+     * @param builder - builder to be emptied
+     */
+    private static void clear(final StringBuilder builder) {
+      builder.setLength(0);
+      if (builder.capacity() > MAX_RETAINED_CHARS) {
+        builder.trimToSize();
+      }
+    }
+  }
+
+
+  /**
+   * A single spacing rule. Holds back the characters that could still turn
+   * out to be the start of a match, so text is matched left to right without
+   * overlapping, as String.replaceAll does.
+   */
+  private static class Rule {
+
+
+    /** Pattern of the rule; see RULES */
+    private char[] pattern;
+
+    /** Text a match is replaced with */
+    private String replacement;
+
+    /** Rule that receives the output, or null for the last rule */
+    private Rule next;
+
+    /** Receives the output of the last rule */
+    private StringBuilder output;
+
+    /** Characters held back */
+    private char[] pending;
+
+    /** Number of characters held back */
+    private int length = 0;
+
+
+    /**
+     * Constructor.
+     * @param pattern - pattern of the rule
+     * @param replacement - text a match is replaced with
+     * @param next - rule that receives the output, or null
+     * @param output - receives the output if this is the last rule
+     */
+    Rule(final String pattern, final String replacement, final Rule next, final StringBuilder output) {
+      this.pattern = pattern.toCharArray();
+      this.replacement = replacement;
+      this.next = next;
+      this.output = output;
+      this.pending = new char[this.pattern.length];
+    }
+
+
+    /**
+     * Takes the next character of the text.
+     * @param c - character
+     */
+    void accept(final char c) {
+
+      // Most characters cannot start a match
+      if (this.length == 0 && !matches(c, this.pattern[0])) {
+        emit(c);
+        return;
+      }
+
+      this.pending[this.length++] = c;
+
+      // Pass on held back characters until they are the start of a match again
+      int start = 0;
+      while (!isPrefix(start)) {
+        emit(this.pending[start++]);
+      }
+      if (this.length - start == this.pattern.length) {
+        for (int i = 0; i < this.replacement.length(); i++) {
+          emit(this.replacement.charAt(i));
+        }
+        start = this.length;
+      }
+
+      if (start != 0) {
+        System.arraycopy(this.pending, start, this.pending, 0, this.length - start);
+        this.length -= start;
+      }
+    }
+
+
+    /**
+     * Ends the text: characters held back can no longer be matched.
+     */
+    void finish() {
+      for (int i = 0; i < this.length; i++) {
+        emit(this.pending[i]);
+      }
+      this.length = 0;
+      if (this.next != null) {
+        this.next.finish();
+      }
+    }
+
+
+    /**
+     * Checks whether the characters held back from an index onwards match
+     * the start of the pattern.
+     * @param start - index of the first held back character checked
+     * @return true if they match
+     */
+    private boolean isPrefix(final int start) {
+      for (int i = start; i < this.length; i++) {
+        if (!matches(this.pending[i], this.pattern[i - start])) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+
+    /**
+     * Passes a character on to the next rule.
+     * @param c - character
+     */
+    private void emit(final char c) {
+      if (this.next != null) {
+        this.next.accept(c);
+      } else {
+        this.output.append(c);
+      }
+    }
+
+
+    /**
+     * Checks a character against one element of a pattern.
+     * @param c - character
+     * @param element - element of the pattern
+     * @return true if the character matches
+     */
+    private static boolean matches(final char c, final char element) {
+      switch (element) {
+        case ' ':
+          return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+        case '*':
+          return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+        default:
+          return c == element;
+      }
+    }
   }
-}
\ No newline at end of file
+}
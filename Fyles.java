@@ -1,9 +1,19 @@
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 
 /**
@@ -34,28 +44,79 @@ class Fyles {
       throw new Exception("Text extracted from '" + document + "' was null.");
     }
 
+    return normalize(lines);
+  }
+
+
+  /**
+   * Joins lines of text into one String, making sure every line ends with
+   * punctuation so that each one is treated as its own sentence.
+   * @param lines - lines of text
+   * @return normalized text
+   */
+  static String normalize(final List<String> lines) {
+
     // Append lines to one String
     StringBuilder text = new StringBuilder();
     for (String line : lines) {
+      appendLine(text, line);
+    }
+    return text.toString();
+  }
 
-      // Remove all unnecessary whitespace
-      line = line.trim();
 
-      // Disregard whitespace lines and empty strings
-      if (line.length() == 0) {
-        continue;
-      }
+  /**
+   * Appends a single line of text, making sure it ends with punctuation.
+   * Whitespace lines are ignored.
+   * @param text - text being built
+   * @param line - line to be appended
+   */
+  static void appendLine(final StringBuilder text, String line) {
 
-      // Guarding against bad punctuation
-      if (line.matches(".*\\p{Punct}")) {
-        text.append(line);
-        text.append(" ");
-      } else {
-        text.append(line);
-        text.append(". ");
-      }
+    // Remove all unnecessary whitespace
+    line = line.trim();
+
+    // Disregard whitespace lines and empty strings
+    if (line.length() == 0) {
+      return;
     }
-    return text.toString();
+
+    // Guarding against bad punctuation
+    if (line.matches(".*\\p{Punct}")) {
+      text.append(line);
+      text.append(" ");
+    } else {
+      text.append(line);
+      text.append(". ");
+    }
+  }
+
+
+  /**
+   * Writes the content of a file as a stream of bytes.
+   */
+  interface Output {
+
+    /**
+     * Writes the content.
+     * @param out - stream the content is written to
+     * @throws IOException
+     */
+    void writeTo(OutputStream out) throws IOException;
+  }
+
+
+  /**
+   * Writes the content of a file as text.
+   */
+  interface TextOutput {
+
+    /**
+     * Writes the content.
+     * @param writer - writer the content is written to
+     * @throws IOException
+     */
+    void writeTo(Writer writer) throws IOException;
   }
 
 
@@ -67,38 +128,59 @@ class Fyles {
    * @throws IOException
    */
   static void write(final String filename, final String text) throws IOException {
-    try (BufferedWriter writer = new BufferedWriter(new FileWriter(createFile(filename)))) {
-      writer.write(text);
-    } catch (IOException e) {
-      throw new IOException("Failed to write to file.");
-    }
+    writeText(filename, writer -> writer.write(text));
   }
 
 
   /**
-   * Creates a file, given a file name. If there is a naming conflict, the
-   * original file is removed.
-   * @param filename - desired name for the file
-   * @return file that exists on disk
+   * Writes text to a file (in UTF-8) as it is produced, without holding all
+   * of it in memory. The file is replaced atomically, see writeBytes.
+   * @param filename - name of the file to write to
+   * @param text - writes the text
    * @throws IOException
    */
-  private static File createFile(final String filename) throws IOException {
+  static void writeText(final String filename, final TextOutput text) throws IOException {
+    writeBytes(filename, out -> {
+      Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+      text.writeTo(writer);
+      writer.flush();
+    });
+  }
 
-    File file = new File(filename);
 
-    // If there is a naming conflict, remove the original
-    if (file.exists()) {
-      if (!file.delete()) {
-        throw new IOException("Failed to delete file.");
-      }
-    }
+  /**
+   * Writes a file as its content is produced. The content goes to a temporary
+   * file next to the target, which then replaces the target in one step, so
+   * a reader never sees a partly written file and a failure leaves any
+   * previous file as it was.
+   * @param filename - name of the file to write to
+   * @param output - writes the content
+   * @throws IOException
+   */
+  static void writeBytes(final String filename, final Output output) throws IOException {
 
-    // Create the new file
-    if (!file.createNewFile()) {
-      throw new IOException("Failed to create file: " + filename);
-    }
+    // Files.createTempFile would make the file readable by its owner only;
+    // a new file of our own gets the usual permissions (per the umask)
+    Path target = Paths.get(filename).toAbsolutePath();
+    Path temp = target.resolveSibling("." + target.getFileName() + "."
+                                      + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36)
+                                      + ".tmp");
 
-    return file;
+    try {
+      try (OutputStream out = new BufferedOutputStream(
+             Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))) {
+        output.writeTo(out);
+      }
+      try {
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      throw new IOException("Failed to write to file: " + filename, e);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
   }
 
 
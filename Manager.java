@@ -1,12 +1,24 @@
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Manages entire program.
  * @author Zach Wilson
  */
+@SuppressWarnings("try")
 class Manager {
 
 
+  /** Default maximum size of the cache in megabytes */
+  private static final long DEFAULT_CACHE_MEGABYTES = 1024;
+
+  /** Megabytes of metadata kept in memory to find near-duplicates in */
+  private static final long DEDUPE_MEGABYTES = 256;
+
   /**
    * Main: Runs program.
    * @param args - no arguments are being used
@@ -37,7 +49,6 @@ class Manager {
     fileOption.addLongName("file");
     fileOption.addDescription("The body of text to be summarized.");
     fileOption.addExpectedArgCount(1);
-    fileOption.isRequired(true);
     commandline.addOption(fileOption);
 
     // Write metadata to file option
@@ -52,6 +63,142 @@ class Manager {
     summaryOption.addDescription("Saves summary to file.");
     commandline.addOption(summaryOption);
 
+    // Server option
+    Option serverOption = new Option();
+    serverOption.addLongName("server");
+    serverOption.addDescription("Runs as a server on the given port.");
+    serverOption.addExpectedArgCount(1);
+    commandline.addOption(serverOption);
+
+    // Batch option
+    Option batchOption = new Option();
+    batchOption.addShortName("b");
+    batchOption.addLongName("batch");
+    batchOption.addDescription("Directory, glob or @list of files to be summarized.");
+    batchOption.addExpectedArgCount(1);
+    commandline.addOption(batchOption);
+
+    // Thread count option
+    Option threadsOption = new Option();
+    threadsOption.addShortName("t");
+    threadsOption.addLongName("threads");
+    threadsOption.addDescription("Number of documents processed concurrently.");
+    threadsOption.addExpectedArgCount(1);
+    commandline.addOption(threadsOption);
+
+    // Parallel annotation option
+    Option parallelOption = new Option();
+    parallelOption.addShortName("p");
+    parallelOption.addLongName("parallel");
+    parallelOption.addDescription("Annotates the sentences of a document in parallel.");
+    commandline.addOption(parallelOption);
+
+    // Profile option
+    Option profileOption = new Option();
+    profileOption.addLongName("profile");
+    profileOption.addDescription("Annotator profile: fast, balanced, full or patterns.");
+    profileOption.addExpectedArgCount(1);
+    commandline.addOption(profileOption);
+
+    // Config file option
+    Option configOption = new Option();
+    configOption.addShortName("c");
+    configOption.addLongName("config");
+    configOption.addDescription("Properties file with settings.");
+    configOption.addExpectedArgCount(1);
+    commandline.addOption(configOption);
+
+    // Profile comparison option
+    Option compareOption = new Option();
+    compareOption.addLongName("compare-profiles");
+    compareOption.addDescription("Compares the speed and quality of each profile.");
+    compareOption.addExpectedArgCount(1);
+    commandline.addOption(compareOption);
+
+    // Cache option
+    Option cacheOption = new Option();
+    cacheOption.addLongName("cache");
+    cacheOption.addDescription("Directory caching extracted text between runs.");
+    cacheOption.addExpectedArgCount(1);
+    commandline.addOption(cacheOption);
+
+    // Cache size option
+    Option cacheSizeOption = new Option();
+    cacheSizeOption.addLongName("cache-size");
+    cacheSizeOption.addDescription("Maximum size of the cache in megabytes.");
+    cacheSizeOption.addExpectedArgCount(1);
+    commandline.addOption(cacheSizeOption);
+
+    // Story option
+    Option storyOption = new Option();
+    storyOption.addLongName("story");
+    storyOption.addDescription("Id of the story the file is a version of; only changes are annotated.");
+    storyOption.addExpectedArgCount(1);
+    commandline.addOption(storyOption);
+
+    // Near-duplicate option
+    Option dedupeOption = new Option();
+    dedupeOption.addLongName("dedupe");
+    dedupeOption.addDescription("Reuse the annotation of documents at least this similar (0 to 1).");
+    dedupeOption.addExpectedArgCount(1);
+    commandline.addOption(dedupeOption);
+
+    // Sentence memo option
+    Option memoOption = new Option();
+    memoOption.addLongName("sentence-memo");
+    memoOption.addDescription("Number of extracted sentences remembered, so they are not annotated again.");
+    memoOption.addExpectedArgCount(1);
+    commandline.addOption(memoOption);
+
+    // Phrase table option
+    Option phrasesOption = new Option();
+    phrasesOption.addLongName("phrases");
+    phrasesOption.addDescription("Keeps the triples of remembered sentences in one table of phrases.");
+    commandline.addOption(phrasesOption);
+
+    // Load metadata option
+    Option loadOption = new Option();
+    loadOption.addShortName("l");
+    loadOption.addLongName("load");
+    loadOption.addDescription("Summarizes metadata saved with -m instead of a text file.");
+    loadOption.addExpectedArgCount(1);
+    commandline.addOption(loadOption);
+
+    // Streaming window option
+    Option windowOption = new Option();
+    windowOption.addShortName("w");
+    windowOption.addLongName("window");
+    windowOption.addDescription("Reads files in windows of about this many characters.");
+    windowOption.addExpectedArgCount(1);
+    commandline.addOption(windowOption);
+
+    // Stats option
+    Option statsOption = new Option();
+    statsOption.addLongName("stats");
+    statsOption.addDescription("Prints the time, CPU and memory each stage took.");
+    commandline.addOption(statsOption);
+
+    // Stats file option
+    Option statsFileOption = new Option();
+    statsFileOption.addLongName("stats-file");
+    statsFileOption.addDescription("Appends the stats of each document to a file as JSON lines.");
+    statsFileOption.addExpectedArgCount(1);
+    commandline.addOption(statsFileOption);
+
+    // Entity index option
+    Option indexOption = new Option();
+    indexOption.addLongName("index");
+    indexOption.addDescription("Directory indexing the named entities of every document summarized.");
+    indexOption.addExpectedArgCount(1);
+    commandline.addOption(indexOption);
+
+    // Entity lookup option
+    Option lookupOption = new Option();
+    lookupOption.addLongName("lookup");
+    lookupOption.addDescription("Lists the documents and sentences of the index mentioning an entity.");
+    lookupOption.addExpectedArgCount(1);
+    commandline.addOption(lookupOption);
+
     // Help option
     commandline.createHelp(getDisplayHelp());
 
@@ -64,39 +211,313 @@ class Manager {
       return;
     }
 
-    // Get file containing body of text
-    File file = new File(fileOption.getArgument(0));
-    if (!file.exists()) {
-      throw new IllegalArgumentException("File '" + file + "' does not exist.");
+    // Get number of threads
+    int threads = Runtime.getRuntime().availableProcessors();
+    if (threadsOption.isFound()) {
+      threads = parsePositive(threadsOption.getArgument(0), "thread count");
+    }
+
+    // Get settings; the command line takes precedence over the config file
+    Config config = new Config();
+    if (configOption.isFound()) {
+      config = new Config(new File(configOption.getArgument(0)));
+    }
+    if (profileOption.isFound()) {
+      config = config.withProfile(Profile.forName(profileOption.getArgument(0)));
+    }
+
+    // Compare the profiles on a set of files
+    if (compareOption.isFound()) {
+      ProfileComparison.run(Batch.resolve(compareOption.getArgument(0)), config);
+      return;
+    }
+
+    // Get cache of extracted text
+    NetworkCache cache = null;
+    if (cacheOption.isFound()) {
+      long megabytes = DEFAULT_CACHE_MEGABYTES;
+      if (cacheSizeOption.isFound()) {
+        megabytes = parsePositive(cacheSizeOption.getArgument(0), "cache size");
+      }
+      cache = new NetworkCache(new File(cacheOption.getArgument(0)), megabytes * 1024 * 1024);
+    }
+
+    // Get detector of near-duplicate documents
+    DuplicateDetector duplicates = null;
+    if (dedupeOption.isFound()) {
+      String similarity = dedupeOption.getArgument(0);
+      try {
+        duplicates = new DuplicateDetector(Double.parseDouble(similarity), DEDUPE_MEGABYTES * 1024 * 1024);
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Invalid similarity: '" + similarity + "'.");
+      }
+    }
+
+    // List the mentions of an entity in the index
+    if (lookupOption.isFound()) {
+      if (!indexOption.isFound()) {
+        throw new IllegalArgumentException("Option '" + lookupOption.getName() + "' needs '"
+                                           + indexOption.getName() + "'.");
+      }
+      try (EntityIndex index = new EntityIndex(new File(indexOption.getArgument(0)))) {
+        String noun = lookupOption.getArgument(0);
+        printMentions(noun, index.lookup(noun, null));
+      }
+      return;
+    }
+
+    // Threads annotating the sentences of a single document
+    int sentenceThreads = parallelOption.isFound() ? threads : 1;
+
+    // Get number of sentences remembered by the pipeline
+    int memoSentences = 0;
+    if (memoOption.isFound()) {
+      memoSentences = parsePositive(memoOption.getArgument(0), "number of sentences");
+    }
+
+    // Get table the memo keeps its phrases in; it only grows, so it is kept to batches
+    Phrases phrases = null;
+    if (phrasesOption.isFound()) {
+      if (!memoOption.isFound() || !batchOption.isFound()) {
+        throw new IllegalArgumentException("Option '" + phrasesOption.getName() + "' needs '"
+                                           + memoOption.getName() + "' and '"
+                                           + batchOption.getName() + "'.");
+      }
+      phrases = new Phrases();
+    }
+
+    // Run as a server until shut down
+    if (serverOption.isFound()) {
+      int port = parsePositive(serverOption.getArgument(0), "port");
+      Pipeline pipeline = new Pipeline(config, sentenceThreads, memoSentences);
+      new Server(port, threads, pipeline, cache, duplicates).start();
+      return;
+    }
+
+    // Get size of the windows files are read in; 0 reads files whole
+    int window = 0;
+    if (windowOption.isFound()) {
+      window = parsePositive(windowOption.getArgument(0), "window size");
     }
 
+    // Get stats options
+    boolean printStats = statsOption.isFound();
+    File statsFile = statsFileOption.isFound() ? new File(statsFileOption.getArgument(0)) : null;
+
     // Get metadata option
     boolean writeMetadata = metaDataOption.isFound();
 
     // Get summary option
     boolean writeSummary = summaryOption.isFound();
 
-    // Running program
-    Extractor extractor = new Extractor(file);
+    // Get reporter of stats and index of named entities; closing them writes
+    // what was added
+    File indexDirectory = indexOption.isFound() ? new File(indexOption.getArgument(0)) : null;
+    try (Stats.Reporter reporter = (printStats || statsFile != null) ? new Stats.Reporter(printStats, statsFile)
+                                                                     : null;
+         EntityIndex index = (indexDirectory == null) ? null : new EntityIndex(indexDirectory)) {
+
+      // Summarize many files at once
+      if (batchOption.isFound()) {
+        List<File> files = Batch.resolve(batchOption.getArgument(0));
+        Pipeline pipeline = new Pipeline(config, sentenceThreads, memoSentences, phrases);
+        new Batch(threads, pipeline, cache, duplicates, index, window, writeMetadata, writeSummary, reporter)
+          .run(files);
+        return;
+      }
+
+      // Summarize metadata saved by an earlier run, without annotating
+      if (loadOption.isFound()) {
+        File metadataFile = new File(loadOption.getArgument(0)).getAbsoluteFile();
+        Metadata metadata = Metadata.load(metadataFile);
+        File source = new File(metadataFile.getParentFile(), metadata.getSource());
+        Stats stats = (reporter == null) ? null : Stats.start(source.getName());
+        addToIndex(index, source, metadata.getNER());
+        try (Stats.Stage stage = Stats.begin("purgeTriples")) {
+          Stats.count("triples purged", metadata.getNetwork().purgeTriples(config.getTripleFilter()).size());
+        }
+        Network summary = summarize(source, metadata.getNetwork(), metadata.getNER(),
+                                    config.getTripleScorer(), false, writeSummary);
+        clearConsole();
+        printSummary(source.getName(), summary);
+        report(reporter, stats);
+        return;
+      }
+
+      // A file is required when not running as a server or in batch mode
+      if (!fileOption.isFound()) {
+        throw new IllegalArgumentException("Required option '" + fileOption.getName() + "'.");
+      }
+
+      // Get file containing body of text
+      File file = new File(fileOption.getArgument(0));
+      if (!file.exists()) {
+        throw new IllegalArgumentException("File '" + file + "' does not exist.");
+      }
+
+      // Get story the file is a version of
+      String story = null;
+      if (storyOption.isFound()) {
+        if (cache == null || window > 0) {
+          throw new IllegalArgumentException("Option '" + storyOption.getName() + "' needs '"
+                                             + cacheOption.getName() + "' and cannot be used with '"
+                                             + windowOption.getName() + "'.");
+        }
+        story = storyOption.getArgument(0);
+      }
+
+      // Running program
+      Pipeline pipeline = new Pipeline(config, sentenceThreads, memoSentences);
+      Stats stats = (reporter == null) ? null : Stats.start(file.getName());
+      Network summary = summarize(file, pipeline, cache, story, duplicates, index, window,
+                                  writeMetadata, writeSummary);
+
+      // Display summary
+      clearConsole();
+      printSummary(file.getName(), summary);
+      report(reporter, stats);
+    }
+  }
 
-    // Get the network and process it
-    Network network = extractor.getNetwork();
-    cleanupSentences(network);
-    String summary = Concatenator.fuse(network);
+
+  /**
+   * Summarizes a single file and (optionally) writes its metadata and
+   * summary next to it.
+   * @param file - file containing body of text
+   * @param pipeline - pipeline used to annotate the text
+   * @param cache - (optional) cache of previously extracted text
+   * @param story - (optional) id of the story the file is a version of
+   * @param duplicates - (optional) documents extracted earlier, to find near-duplicates in
+   * @param index - (optional) index the named entities are added to
+   * @param window - size of the windows the file is read in; 0 reads the
+   *                 whole file (streamed files are not cached)
+   * @param writeMetadata - whether metadata is written to file
+   * @param writeSummary - whether the summary is written to file
+   * @return the sentences of the summary
+   * @throws Exception
+   */
+  static Network summarize(final File file,
+                           final Pipeline pipeline,
+                           final NetworkCache cache,
+                           final String story,
+                           final DuplicateDetector duplicates,
+                           final EntityIndex index,
+                           final int window,
+                           final boolean writeMetadata,
+                           final boolean writeSummary) throws Exception {
+
+    Extractor extractor;
+    if (window > 0) {
+      extractor = new Extractor(file, window, pipeline);
+    } else {
+      String text;
+      try (Stats.Stage stage = Stats.begin("read")) {
+        text = Fyles.getText(file);
+      }
+      extractor = new Extractor(text, pipeline, cache, story, duplicates);
+    }
+    if (extractor.isDegraded()) {
+      System.err.println("Annotation of '" + file + "' was degraded to stay within its budget.");
+    }
+    addToIndex(index, file, extractor.getNER());
+    return summarize(file, extractor.getNetwork(), extractor.getNER(),
+                     pipeline.getTripleScorer(), writeMetadata, writeSummary);
+  }
+
+
+  /**
+   * Summarizes extracted metadata and (optionally) writes the metadata and
+   * summary next to the original file.
+   * @param file - file the metadata was extracted from
+   * @param network - network extracted from the file
+   * @param ner - named entities extracted from the file
+   * @param scorer - chooses the triple representing each sentence
+   * @param writeMetadata - whether metadata is written to file
+   * @param writeSummary - whether the summary is written to file
+   * @return the sentences of the summary
+   * @throws Exception
+   */
+  private static Network summarize(final File file,
+                                   final Network network,
+                                   final EntitiesList ner,
+                                   final TripleScorer scorer,
+                                   final boolean writeMetadata,
+                                   final boolean writeSummary) throws Exception {
+
+    // Save everything that was extracted, so it can be summarized again with -l
+    if (writeMetadata) {
+      try (Stats.Stage stage = Stats.begin("write metadata")) {
+        String name = Fyles.removeFileExtension(file) + "-meta.bin";
+        Fyles.writeBytes(name, out -> MetadataWriter.write(out, file.getName(), network, ner));
+      }
+    }
+
+    // Process the network
+    cleanupSentences(network, scorer);
 
     // Write metadata to file
     if (writeMetadata) {
-      write(file, "-meta", network.toString() + extractor.getNER().toString());
+      try (Stats.Stage stage = Stats.begin("write metadata")) {
+        write(file, "-meta", writer -> {
+          network.write(writer);
+          ner.write(writer);
+        });
+      }
     }
 
     // Write summary to file
     if (writeSummary) {
-      write (file, "-summary", summary);
+      try (Stats.Stage stage = Stats.begin("write summary")) {
+        write (file, "-summary", writer -> Concatenator.fuse(network, writer));
+      }
     }
 
-    // Display summary
-    clearConsole();
-    printSummary(file.getName(), summary);
+    return network;
+  }
+
+
+  /**
+   * Adds the named entities of a file to the index, if there is one.
+   * @param index - (optional) index of named entities
+   * @param file - file the named entities were extracted from
+   * @param ner - named entities of the file
+   * @throws IOException
+   */
+  private static void addToIndex(final EntityIndex index, final File file, final EntitiesList ner)
+      throws IOException {
+    if (index != null) {
+      try (Stats.Stage stage = Stats.begin("index")) {
+        index.add(file.getAbsolutePath(), ner);
+      }
+    }
+  }
+
+
+  /**
+   * Prints the documents and sentence numbers mentioning an entity, e.g.,
+   *   Boston (LOCATION)
+   *      /news/a.txt: 1, 4
+   * @param noun - noun of the entity
+   * @param mentions - mentions found in the index
+   */
+  private static void printMentions(final String noun, final List<EntityIndex.Mention> mentions) {
+    if (mentions.isEmpty()) {
+      System.out.println("No mentions of '" + noun + "'.");
+      return;
+    }
+    Map<String, Map<String, List<Integer>>> byType = new LinkedHashMap<>();
+    for (EntityIndex.Mention mention : mentions) {
+      byType.computeIfAbsent(mention.getType(), type -> new LinkedHashMap<>())
+            .computeIfAbsent(mention.getDocument(), document -> new ArrayList<>())
+            .add(mention.getSentenceNumber());
+    }
+    for (Map.Entry<String, Map<String, List<Integer>>> type : byType.entrySet()) {
+      System.out.println(noun + " (" + type.getKey() + ")");
+      for (Map.Entry<String, List<Integer>> document : type.getValue().entrySet()) {
+        String numbers = document.getValue().toString();
+        System.out.println("   " + document.getKey() + ": " + numbers.substring(1, numbers.length() - 1));
+      }
+    }
   }
 
 
@@ -114,30 +535,92 @@ class Manager {
     string += "   -f  or  --file [filename] Body of text to be summarized\n";
     string += "   -m                        Write metadata to file\n";
     string += "   -s                        Write summary to file\n";
+    string += "   -l  or  --load [file]     Summarize metadata saved with -m\n";
+    string += "   -b  or  --batch [files]   Directory, glob or @list of files\n";
+    string += "   --server [port]           Run as a server on a local port\n";
+    string += "   -t  or  --threads [count] Documents processed concurrently\n";
+    string += "   -p  or  --parallel        Annotate sentences of a document in parallel\n";
+    string += "   --profile [name]          Annotator profile: fast, balanced, full or patterns\n";
+    string += "   -c  or  --config [file]   Properties file with settings\n";
+    string += "   --compare-profiles [files] Compare speed and quality of each profile\n";
+    string += "   -w  or  --window [chars]  Read files in windows of this many characters\n";
+    string += "   --cache [directory]       Cache extracted text between runs\n";
+    string += "   --cache-size [megabytes]  Maximum size of the cache (default 1024)\n";
+    string += "   --story [id]              Annotate only what changed since the story's last version\n";
+    string += "   --dedupe [similarity]     Reuse the annotation of near-duplicates (0 to 1)\n";
+    string += "   --sentence-memo [count]   Remember this many extracted sentences across documents\n";
+    string += "   --phrases                 Keep the memo's triples in one table of phrases (batch)\n";
+    string += "   --stats                   Print the time, CPU and memory of each stage\n";
+    string += "   --stats-file [file]       Append the stats of each document as JSON lines\n";
+    string += "   --index [directory]       Index the named entities of each document\n";
+    string += "   --lookup [entity]         List the documents of the index mentioning an entity\n";
     return string;
   }
 
 
   /**
-   * Purges unneeded triples and sentences, and the chooses
-   * which triples should be used to represent a given sentence.
+   * Purges sentences left without triples (unneeded triples are dropped
+   * during extraction), and then chooses which triples should be used to
+   * represent a given sentence.
    * @param network - the network containing the data to clean up
+   * @param scorer - chooses the triple representing each sentence
+   */
+  static void cleanupSentences(Network network, TripleScorer scorer) {
+    try (Stats.Stage stage = Stats.begin("purgeSentences")) {
+      Stats.count("sentences purged", network.purgeSentences().size());
+    }
+    try (Stats.Stage stage = Stats.begin("chooseTriples")) {
+      network.chooseTriples(scorer);
+    }
+    Stats.count("summary sentences", network.size());
+  }
+
+
+  /**
+   * Parses a positive integer argument.
+   * @param argument - command line argument
+   * @param name - what the argument represents, used in the error message
+   * @return the parsed integer
    */
-  private static void cleanupSentences(Network network) {
-    network.purgeTriples();
-    network.purgeSentences();
-    network.chooseLongestTriples();
+  private static int parsePositive(final String argument, final String name) {
+    try {
+      int value = Integer.parseInt(argument);
+      if (value > 0) {
+        return value;
+      }
+    } catch (NumberFormatException e) {
+      // Handled below
+    }
+    throw new IllegalArgumentException("Invalid " + name + ": '" + argument + "'.");
   }
 
 
   /**
    * Prints out the summary with NER information embedded inside.
    * @param filename - file being summarized
-   * @param summary - summary of the file
+   * @param summary - sentences of the summary
+   * @throws IOException
    */
-  private static void printSummary(final String filename, final String summary) {
-    System.out.println("Summary of " + filename + ":");
-    System.out.println(summary);
+  static void printSummary(final String filename, final Network summary) throws IOException {
+    try (Stats.Stage stage = Stats.begin("fuse")) {
+      System.out.println("Summary of " + filename + ":");
+      Concatenator.fuse(summary, System.out);
+      System.out.println();
+    }
+  }
+
+
+  /**
+   * Stops recording the stats of a document and reports them.
+   * @param reporter - (optional) reports the stats
+   * @param stats - (optional) stats of the document
+   * @throws IOException
+   */
+  static void report(final Stats.Reporter reporter, final Stats stats) throws IOException {
+    if (stats != null) {
+      stats.finish();
+      reporter.report(stats);
+    }
   }
 
 
@@ -154,18 +637,18 @@ class Manager {
    * Writes information to file. File will be given new name based on the
    * extension: e.g., 'file.txt' & '-ext' ––> 'file-ext.txt'.
    * @param ext - new extension to file
-   * @param string - string to be written to file
+   * @param text - writes the text to file
    * @throws Exception
    */
   static private void write(final File original,
                             final String ext,
-                            final String string) throws Exception {
+                            final Fyles.TextOutput text) throws Exception {
 
     // Create new file to write to
     String oldExtension = Fyles.getFileExtension(original, true);
     String name = Fyles.removeFileExtension(original);
 
     // Start writing
-    Fyles.write(name + ext + oldExtension, string);
+    Fyles.writeText(name + ext + oldExtension, text);
   }
 }
\ No newline at end of file
@@ -0,0 +1,281 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Metadata (sentences, triples and named entities) loaded from the binary
+ * format written by MetadataWriter. The Network is rebuilt directly, so it
+ * can be purged and fused again without annotating the text.
+ */
+class Metadata {
+
+
+  /** Most bytes of a string; a longer one means the metadata is corrupt */
+  private static final int MAX_STRING_BYTES = 1 << 26;
+
+  /** Most items of a list; a longer one means the metadata is corrupt */
+  private static final int MAX_COUNT = 1 << 24;
+
+  /** Most items a list is sized for before they are read */
+  private static final int MAX_INITIAL_CAPACITY = 1024;
+
+  /** Name of the file the metadata was extracted from */
+  private String source;
+
+  /** Network of sentences and triples */
+  private Network network = new Network();
+
+  /** Named entities of the document */
+  private EntitiesList ner = new EntitiesList();
+
+  /** The input stream while loading */
+  private DataInputStream in;
+
+  /** Every string read so far, for resolving references */
+  private List<String> strings = new ArrayList<>();
+
+  /** (Optional) table the phrases of the triples are added to */
+  private Phrases phrases;
+
+
+  /**
+   * Constructor.
+   * Reads metadata from a stream.
+   * @param in - input stream; closed once read
+   * @throws IOException
+   */
+  Metadata(final InputStream in) throws IOException {
+    this(in, null);
+  }
+
+
+  /**
+   * Constructor.
+   * Reads metadata from a stream, keeping the triples as ids in a table of
+   * phrases (see Network.encode).
+   * @param in - input stream; closed once read
+   * @param phrases - (optional) table the phrases are added to
+   * @throws IOException
+   */
+  Metadata(final InputStream in, final Phrases phrases) throws IOException {
+    this.phrases = phrases;
+    try (DataInputStream data = new DataInputStream(new BufferedInputStream(in))) {
+      this.in = data;
+      read();
+    } finally {
+      this.in = null;
+      this.strings = null;
+      this.phrases = null;
+    }
+  }
+
+
+  /**
+   * Loads metadata from a file.
+   * @param file - file written by MetadataWriter
+   * @return metadata
+   * @throws IOException
+   */
+  static Metadata load(final File file) throws IOException {
+    return load(file, null);
+  }
+
+
+  /**
+   * Loads metadata from a file, keeping the triples as ids in a table of
+   * phrases. Sharing the table between documents saves the most memory.
+   * @param file - file written by MetadataWriter
+   * @param phrases - (optional) table the phrases are added to
+   * @return metadata
+   * @throws IOException
+   */
+  static Metadata load(final File file, final Phrases phrases) throws IOException {
+    try {
+      return new Metadata(Files.newInputStream(file.toPath()), phrases);
+    } catch (IOException e) {
+      throw new IOException("Unable to read metadata: " + file, e);
+    }
+  }
+
+
+  /**
+   * Gets the name of the file the metadata was extracted from.
+   * @return file name
+   */
+  String getSource() {
+    return this.source;
+  }
+
+
+  /**
+   * Getter for Network.
+   * @return network
+   */
+  Network getNetwork() {
+    return this.network;
+  }
+
+
+  /**
+   * Getter for named entity recognition.
+   * @return named entity recognition
+   */
+  EntitiesList getNER() {
+    return this.ner;
+  }
+
+
+  /**
+   * Reads the header and every record.
+   * @throws IOException
+   */
+  private void read() throws IOException {
+
+    if (this.in.readInt() != MetadataWriter.MAGIC) {
+      throw new IOException("Not a metadata file.");
+    }
+    int version = this.in.readUnsignedByte();
+    if (version != MetadataWriter.VERSION) {
+      throw new IOException("Unsupported metadata version: " + version);
+    }
+    this.source = readString();
+
+    while (true) {
+      int tag = readVarint();
+      switch (tag) {
+        case MetadataWriter.END:
+          return;
+        case MetadataWriter.SENTENCE:
+          readSentence();
+          break;
+        case MetadataWriter.ENTITIES:
+          readEntityList(this.ner);
+          break;
+        default:
+          throw new IOException("Corrupt metadata: unknown record " + tag);
+      }
+    }
+  }
+
+
+  /**
+   * Reads a sentence with its named entities, dates and triples.
+   * @throws IOException
+   */
+  private void readSentence() throws IOException {
+
+    int sentenceNumber = readVarint();
+    Sentence sentence = new Sentence(readString());
+
+    EntitiesList entities = new EntitiesList();
+    readEntityList(entities);
+    sentence.addEntities(entities);
+
+    int count = readCount("date");
+    List<TimeExpression> times = new ArrayList<>(Math.min(count, MAX_INITIAL_CAPACITY));
+    for (int i = 0; i < count; i++) {
+      times.add(new TimeExpression(readString(), readString()));
+    }
+    sentence.setTimes(times);
+
+    count = readCount("triple");
+    List<Triple> triples = new ArrayList<>(Math.min(count, MAX_INITIAL_CAPACITY));
+    for (int i = 0; i < count; i++) {
+      String actor = readString();
+      String action = readString();
+      String receiver = readString();
+      double score = this.in.readDouble();
+      triples.add((this.phrases == null) ? new StringTriple(actor, action, receiver, score)
+                                         : new EncodedTriple(this.phrases, actor, action, receiver, score));
+    }
+    sentence.setAllTriples(triples);
+
+    this.network.add(sentenceNumber, sentence);
+  }
+
+
+  /**
+   * Reads a list of named entities.
+   * @param entities - list the named entities are added to
+   * @throws IOException
+   */
+  private void readEntityList(final EntitiesList entities) throws IOException {
+    int count = readCount("entity");
+    for (int i = 0; i < count; i++) {
+      String noun = readString();
+      String type = readString();
+      int numbers = readCount("sentence number");
+      for (int j = 0; j < numbers; j++) {
+        entities.add(noun, type, readVarint());
+      }
+    }
+  }
+
+
+  /**
+   * Reads a string, or resolves a reference to one read before.
+   * @return the string
+   * @throws IOException
+   */
+  private String readString() throws IOException {
+    int reference = readVarint();
+    if (reference != 0) {
+      if (reference > this.strings.size()) {
+        throw new IOException("Corrupt metadata: bad string reference " + reference);
+      }
+      return this.strings.get(reference - 1);
+    }
+    int length = readVarint();
+    if (length > MAX_STRING_BYTES) {
+      throw new IOException("Corrupt metadata: bad string length " + length);
+    }
+    byte[] bytes = new byte[length];
+    this.in.readFully(bytes);
+    String string = new String(bytes, StandardCharsets.UTF_8);
+    this.strings.add(string);
+    return string;
+  }
+
+
+  /**
+   * Reads the number of items of a list.
+   * @param item - what the items are, used in the error message
+   * @return number of items
+   * @throws IOException
+   */
+  private int readCount(final String item) throws IOException {
+    int count = readVarint();
+    if (count > MAX_COUNT) {
+      throw new IOException("Corrupt metadata: bad " + item + " count " + count);
+    }
+    return count;
+  }
+
+
+  /**
+   * Reads a non-negative int written 7 bits per byte.
+   * @return the value
+   * @throws IOException
+   */
+  private int readVarint() throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      int b = this.in.readUnsignedByte();
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        if (value < 0) {
+          break;
+        }
+        return value;
+      }
+    }
+    throw new IOException("Corrupt metadata: bad number");
+  }
+}
@@ -0,0 +1,185 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Writes metadata (sentences, triples and named entities) in the compact
+ * binary format read by Metadata.
+ * Sentences are written one at a time as they are produced, so the whole
+ * document never needs to be rendered in memory.
+ *
+ * Format:
+ *   header:   magic "ASMD", version (byte), source file name (string)
+ *   records:  SENTENCE number text entities times (text value)
+ *                      triples (actor action receiver score)
+ *             ENTITIES entities (the document-wide list, written once)
+ *   end:      END
+ * Numbers are unsigned varints and scores are 8-byte doubles. A string is
+ * written in full the first time it appears (0, byte length, UTF-8 bytes)
+ * and afterwards as a reference to that first appearance (index + 1), since
+ * subjects, relations and entity types repeat throughout a document.
+ */
+class MetadataWriter implements Closeable {
+
+
+  /** Marks the start of a metadata file */
+  static final int MAGIC = 0x41534D44;
+
+  /** Current version of the format */
+  static final int VERSION = 3;
+
+  /** Record tags */
+  static final int END = 0, SENTENCE = 1, ENTITIES = 2;
+
+  /** The output stream */
+  private DataOutputStream out;
+
+  /** Index of every string written so far */
+  private Map<String, Integer> strings = new HashMap<>();
+
+
+  /**
+   * Constructor.
+   * Writes the header.
+   * @param out - output stream; closed when the writer is closed
+   * @param source - name of the file the metadata was extracted from
+   * @throws IOException
+   */
+  MetadataWriter(final OutputStream out, final String source) throws IOException {
+    this.out = new DataOutputStream(new BufferedOutputStream(out));
+    this.out.writeInt(MAGIC);
+    this.out.writeByte(VERSION);
+    writeString(source);
+  }
+
+
+  /**
+   * Writes a complete document.
+   * @param out - output stream; closed once written
+   * @param source - name of the file the metadata was extracted from
+   * @param network - network of sentences and triples
+   * @param ner - named entities of the document
+   * @throws IOException
+   */
+  static void write(final OutputStream out,
+                    final String source,
+                    final Network network,
+                    final EntitiesList ner) throws IOException {
+    try (MetadataWriter writer = new MetadataWriter(out, source)) {
+      for (int i = 0; i < network.size(); i++) {
+        writer.writeSentence(network.getSentenceNumber(i), network.getSentence(i));
+      }
+      writer.writeEntities(ner);
+    }
+  }
+
+
+  /**
+   * Writes a sentence with its named entities, dates and triples.
+   * @param sentenceNumber - number of the sentence in the document
+   * @param sentence - the sentence
+   * @throws IOException
+   */
+  void writeSentence(final int sentenceNumber, final Sentence sentence) throws IOException {
+    writeVarint(SENTENCE);
+    writeVarint(sentenceNumber);
+    writeString(sentence.getSentence());
+    writeEntityList(sentence.getEntities());
+
+    List<TimeExpression> times = sentence.getTimes();
+    writeVarint(times.size());
+    for (TimeExpression time : times) {
+      writeString(time.getText());
+      writeString(time.getValue());
+    }
+
+    List<Triple> triples = sentence.getAllTriples();
+    writeVarint(triples.size());
+    for (Triple triple : triples) {
+      writeString(triple.getActor());
+      writeString(triple.getAction());
+      writeString(triple.getReceiver());
+      this.out.writeDouble(triple.getScore());
+    }
+  }
+
+
+  /**
+   * Writes the named entities of the whole document.
+   * @param ner - named entities of the document
+   * @throws IOException
+   */
+  void writeEntities(final EntitiesList ner) throws IOException {
+    writeVarint(ENTITIES);
+    writeEntityList(ner);
+  }
+
+
+  /**
+   * Ends the metadata and closes the stream.
+   * @throws IOException
+   */
+  @Override
+  public void close() throws IOException {
+    writeVarint(END);
+    this.out.close();
+  }
+
+
+  /**
+   * Writes a list of named entities.
+   * @param entities - named entities
+   * @throws IOException
+   */
+  private void writeEntityList(final EntitiesList entities) throws IOException {
+    writeVarint(entities.getEntities().size());
+    for (Entity entity : entities.getEntities()) {
+      writeString(entity.getNoun());
+      writeString(entity.getType());
+      writeVarint(entity.getSentenceCount());
+      for (int i = 0; i < entity.getSentenceCount(); i++) {
+        writeVarint(entity.getSentenceNumber(i));
+      }
+    }
+  }
+
+
+  /**
+   * Writes a string, or a reference to it if it has been written before.
+   * @param string - string to be written
+   * @throws IOException
+   */
+  private void writeString(final String string) throws IOException {
+    Integer index = this.strings.get(string);
+    if (index != null) {
+      writeVarint(index + 1);
+      return;
+    }
+    this.strings.put(string, this.strings.size());
+    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    writeVarint(0);
+    writeVarint(bytes.length);
+    this.out.write(bytes);
+  }
+
+
+  /**
+   * Writes a non-negative int in as few bytes as possible (7 bits per byte).
+   * @param value - non-negative value
+   * @throws IOException
+   */
+  private void writeVarint(int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      this.out.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    this.out.writeByte(value);
+  }
+}
@@ -1,59 +1,153 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
-import java.util.Map.Entry;
 
 
 /**
  * A Network contains all Sentences from a body of text which contain the
  * original sentences and associated Triples.
+ *
+ * Sentences are kept in document order in plain arrays, next to their
+ * sentence numbers, so iterating is in order and does not box any keys.
  */
-class Network {
+class Network implements Iterable<Sentence> {
 
 
-  /** Network of sentence numbers & Sentence object containing all its metadata */
-  private Map<Integer, Sentence> network;
+  /** Initial capacity of the arrays */
+  private static final int INITIAL_CAPACITY = 16;
+
+  /** Sentence objects containing all of their metadata, in document order */
+  private Sentence[] sentences;
+
+  /** Sentence number of each sentence, in increasing order */
+  private int[] sentenceNumbers;
+
+  /** Number of sentences in the network */
+  private int size;
 
 
   /**
    * Default Constructor.
-   * Creates a new empty HashMap to contain the Sentences where
-   * the original sentence in the key and the Sentence object
-   * containing information on each sentence is the value.
+   * Creates an empty network.
    */
   Network() {
-    this.network = new HashMap<>();
+    this.sentences = new Sentence[INITIAL_CAPACITY];
+    this.sentenceNumbers = new int[INITIAL_CAPACITY];
+    this.size = 0;
+  }
+
+
+  /**
+   * Gets the number of sentences in the network.
+   * @return number of sentences
+   */
+  int size() {
+    return this.size;
+  }
+
+
+  /**
+   * Gets a sentence by its position in the network.
+   * @param index - position, from 0 to size() - 1
+   * @return sentence
+   */
+  Sentence getSentence(final int index) {
+    return this.sentences[checkIndex(index)];
+  }
+
+
+  /**
+   * Gets the sentence number of a sentence by its position in the network.
+   * @param index - position, from 0 to size() - 1
+   * @return sentence number
+   */
+  int getSentenceNumber(final int index) {
+    return this.sentenceNumbers[checkIndex(index)];
   }
 
 
   /**
-   * Returns the network containing the sentence Strings with their
-   * associated Sentence objects.
-   * @return network
+   * Finds a sentence by its sentence number.
+   * @param sentenceNumber - the sentence number
+   * @return sentence, or null if there is no such sentence
    */
-  Map<Integer, Sentence> getCollection() {
-    return this.network;
+  Sentence get(final int sentenceNumber) {
+    int index = Arrays.binarySearch(this.sentenceNumbers, 0, this.size, sentenceNumber);
+    return (index < 0) ? null : this.sentences[index];
   }
 
 
   /**
    * Adding a sentence number and a Sentence object to the network.
+   * Sentences are normally added in document order, which is a plain append;
+   * a sentence number that already exists is replaced.
    * @param sentenceNumber - the sentence number
    * @param sentence - instance of Sentence
    */
-  void add(Integer sentenceNumber, Sentence sentence) {
-    this.network.put(sentenceNumber, sentence);
+  void add(int sentenceNumber, Sentence sentence) {
+
+    // Usual case: appending to the end
+    int index = this.size;
+    if (this.size != 0 && this.sentenceNumbers[this.size - 1] >= sentenceNumber) {
+      index = Arrays.binarySearch(this.sentenceNumbers, 0, this.size, sentenceNumber);
+      if (index >= 0) {
+        this.sentences[index] = sentence;
+        return;
+      }
+      index = -(index + 1);
+    }
+
+    if (this.size == this.sentences.length) {
+      int capacity = this.size + (this.size >> 1);
+      this.sentences = Arrays.copyOf(this.sentences, capacity);
+      this.sentenceNumbers = Arrays.copyOf(this.sentenceNumbers, capacity);
+    }
+
+    System.arraycopy(this.sentences, index, this.sentences, index + 1, this.size - index);
+    System.arraycopy(this.sentenceNumbers, index, this.sentenceNumbers, index + 1, this.size - index);
+    this.sentences[index] = sentence;
+    this.sentenceNumbers[index] = sentenceNumber;
+    ++this.size;
   }
 
 
   /**
-   * Purging Triples that have a confidence score of less than 1.000
-   * out of every Sentence in the Network.
+   * Iterates over the sentences in document order.
+   * @return iterator over the sentences
+   */
+  @Override
+  public Iterator<Sentence> iterator() {
+    return new Iterator<Sentence>() {
+
+      private int index = 0;
+
+      @Override
+      public boolean hasNext() {
+        return this.index < size;
+      }
+
+      @Override
+      public Sentence next() {
+        if (this.index >= size) {
+          throw new NoSuchElementException();
+        }
+        return sentences[this.index++];
+      }
+    };
+  }
+
+
+  /**
+   * Purging Triples that the filter does not keep out of every Sentence in
+   * the Network. Extraction already filters triples, so this is only needed
+   * for networks extracted with other settings (e.g., loaded metadata).
+   * @param filter - decides which triples are kept
    * @return a list of all removed Triples
    */
-  List<Triple> purgeTriples() {
+  List<Triple> purgeTriples(final TripleFilter filter) {
     List<Triple> removedTriples = new ArrayList<>();
-    for (Entry<Integer, Sentence> pair: this.network.entrySet()) {
-      Sentence sentence = pair.getValue();
-      removedTriples.addAll(sentence.purge());
+    for (int i = 0; i < this.size; i++) {
+      removedTriples.addAll(this.sentences[i].purge(filter));
     }
     return removedTriples;
   }
@@ -61,32 +155,80 @@ class Network {
 
   /**
    * Purging Sentences that do not have any Triples in them.
+   * Kept sentences are moved forward in a single pass.
    * @return list of removed sentences
    */
   ArrayList<String> purgeSentences() {
 
     ArrayList<String> removedSentences = new ArrayList<>();
-    Iterator<Entry<Integer, Sentence>> it;
 
-    it = this.network.entrySet().iterator();
-    while (it.hasNext()) {
-      Sentence sentence = it.next().getValue();
+    int kept = 0;
+    for (int i = 0; i < this.size; i++) {
+      Sentence sentence = this.sentences[i];
       if (sentence.getAllTriples().isEmpty()) {
         removedSentences.add(sentence.getSentence());
-        it.remove();
+      } else {
+        this.sentences[kept] = sentence;
+        this.sentenceNumbers[kept] = this.sentenceNumbers[i];
+        ++kept;
       }
     }
+
+    // Release the removed sentences
+    Arrays.fill(this.sentences, kept, this.size, null);
+    this.size = kept;
+
     return removedSentences;
   }
 
 
   /**
-   * Forces each Sentence to choose longest Triples to be its
+   * Forces each Sentence to choose its highest scoring Triple to be its
    * representative Triple.
+   * @param scorer - ranks the triples
+   */
+  void chooseTriples(final TripleScorer scorer) {
+    for (int i = 0; i < this.size; i++) {
+      this.sentences[i].chooseTriple(scorer);
+    }
+  }
+
+
+  /**
+   * Stores the triples of every Sentence as ids in a table of phrases, which
+   * takes much less memory when many triples repeat the same phrases. The
+   * network behaves the same afterwards.
+   * @param phrases - table the phrases are added to; may be shared by networks
+   */
+  void encode(final Phrases phrases) {
+    for (int i = 0; i < this.size; i++) {
+      this.sentences[i].encode(phrases);
+    }
+  }
+
+
+  /**
+   * Ensures a position is within the network.
+   * @param index - position
+   * @return the position
+   */
+  private int checkIndex(final int index) {
+    if (index < 0 || index >= this.size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + this.size);
+    }
+    return index;
+  }
+
+
+  /**
+   * Writes every sentence and its triples, in document order.
+   * @param out - where the network is written
+   * @throws IOException
    */
-  void chooseLongestTriples() {
-    for (Entry<Integer, Sentence> pair: this.network.entrySet()) {
-      pair.getValue().chooseLongestTriples();
+  void write(final Appendable out) throws IOException {
+    for (int i = 0; i < this.size; i++) {
+      this.sentences[i].write(out);
+      out.append("\n");
     }
   }
 
@@ -94,9 +236,10 @@ class Network {
   @Override
   public String toString() {
     StringBuilder output = new StringBuilder();
-    for (Entry<Integer, Sentence> pair: this.network.entrySet()) {
-      output.append(pair.getValue());
-      output.append("\n");
+    try {
+      write(output);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
     }
     return output.toString();
   }
@@ -0,0 +1,279 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * On-disk cache of extracted Networks and named entities.
+ * Entries are keyed by a hash of the normalized text and the pipeline
+ * configuration, so re-summarizing unchanged text skips annotation entirely.
+ * The latest version of each story is kept as well (see getStoryKey), so an
+ * updated story only needs its new sentences annotated.
+ *
+ * The cache may be shared by several processes: entries are written to a
+ * temporary file and renamed into place, and eviction of the least recently
+ * used entries happens under a file lock.
+ */
+class NetworkCache {
+
+
+  /** Extension of cache entries */
+  private static final String EXTENSION = ".bin";
+
+  /** How many times the size is checked while the cache fills up once */
+  private static final int EVICTION_CHECKS = 64;
+
+  /** Directory holding the cache entries */
+  private Path directory;
+
+  /** Maximum total size of the cache entries in bytes */
+  private long maxBytes;
+
+  /** Bytes written since the size of the cache was last checked */
+  private AtomicLong unchecked = new AtomicLong();
+
+  /** Number of lookups that found an entry */
+  private AtomicLong hits = new AtomicLong();
+
+  /** Number of lookups that did not find an entry */
+  private AtomicLong misses = new AtomicLong();
+
+
+  /**
+   * Constructor.
+   * @param directory - directory holding the cache entries; created if needed
+   * @param maxBytes - maximum total size of the cache entries in bytes
+   * @throws IOException
+   */
+  NetworkCache(final File directory, final long maxBytes) throws IOException {
+    this.directory = directory.toPath();
+    this.maxBytes = maxBytes;
+    Files.createDirectories(this.directory);
+  }
+
+
+  /**
+   * Creates the key for a body of text.
+   * @param text - normalized text (see Fyles.getText)
+   * @param configuration - description of the pipeline configuration
+   * @return key of the cache entry
+   */
+  String getKey(final String text, final String configuration) {
+    return hash(configuration, text);
+  }
+
+
+  /**
+   * Creates the key under which the latest version of a story is kept.
+   * @param story - id of the story
+   * @param configuration - description of the pipeline configuration
+   * @return key of the cache entry
+   */
+  String getStoryKey(final String story, final String configuration) {
+    return hash("story", configuration, story);
+  }
+
+
+  /**
+   * Hashes strings, separated by zero bytes.
+   * @param parts - strings to be hashed
+   * @return hexadecimal SHA-256 hash
+   */
+  private static String hash(final String... parts) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      for (int i = 0; i < parts.length; i++) {
+        if (i > 0) {
+          digest.update((byte) 0);
+        }
+        digest.update(parts[i].getBytes(StandardCharsets.UTF_8));
+      }
+      StringBuilder key = new StringBuilder();
+      for (byte b : digest.digest()) {
+        key.append(String.format("%02x", b));
+      }
+      return key.toString();
+    } catch (Exception e) {
+      throw new IllegalStateException("SHA-256 is not available.", e);
+    }
+  }
+
+
+  /**
+   * Loads a cache entry.
+   * @param key - key of the cache entry
+   * @return metadata stored under the key, or null if there is none
+   */
+  Metadata load(final String key) {
+    Path path = getPath(key);
+    Metadata metadata;
+    try {
+      metadata = new Metadata(Files.newInputStream(path));
+    } catch (NoSuchFileException e) {
+      this.misses.incrementAndGet();
+      return null;
+    } catch (IOException | RuntimeException e) {
+      // Unreadable entries (or entries in an older format) are dropped and recomputed
+      this.misses.incrementAndGet();
+      delete(path);
+      return null;
+    }
+
+    // Mark as recently used
+    try {
+      Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (IOException e) {
+      // Entry was evicted after being read
+    }
+    this.hits.incrementAndGet();
+    return metadata;
+  }
+
+
+  /**
+   * Stores a cache entry, evicting the least recently used entries if the
+   * cache grows too large. Failing to store an entry is not an error; it
+   * will simply be recomputed.
+   * @param key - key of the cache entry
+   * @param network - network extracted from the text
+   * @param ner - named entities extracted from the text
+   */
+  void store(final String key, final Network network, final EntitiesList ner) {
+    Path temp = null;
+    try {
+      temp = Files.createTempFile(this.directory, key, ".tmp");
+      try (OutputStream out = Files.newOutputStream(temp)) {
+        MetadataWriter.write(out, "", network, ner);
+      }
+      long size = Files.size(temp);
+      Files.move(temp, getPath(key),
+                 StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+      // Only check the total size once enough has been written since the last check
+      if (this.unchecked.addAndGet(size) > this.maxBytes / EVICTION_CHECKS) {
+        this.unchecked.set(0);
+        evict();
+      }
+    } catch (IOException e) {
+      System.err.println("Unable to cache entry " + key + ": " + e);
+      if (temp != null) {
+        delete(temp);
+      }
+    }
+  }
+
+
+  /**
+   * Gets the number of lookups that found an entry.
+   * @return hits
+   */
+  long getHits() {
+    return this.hits.get();
+  }
+
+
+  /**
+   * Gets the number of lookups that did not find an entry.
+   * @return misses
+   */
+  long getMisses() {
+    return this.misses.get();
+  }
+
+
+  /**
+   * Gets a description of the hit and miss counters.
+   * @return hits and misses
+   */
+  String getStatistics() {
+    return "Cache: " + getHits() + " hits, " + getMisses() + " misses";
+  }
+
+
+  /**
+   * Deletes the least recently used entries until the cache fits in its
+   * size limit. Other processes are locked out while this happens.
+   * @throws IOException
+   */
+  @SuppressWarnings("try")
+  private synchronized void evict() throws IOException {
+
+    Path lockFile = this.directory.resolve(".lock");
+    try (FileChannel channel = FileChannel.open(lockFile,
+           StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+         FileLock lock = channel.lock()) {
+
+      // Gather entries with their size and last use
+      Map<Path, BasicFileAttributes> entries = new HashMap<>();
+      long total = 0;
+      try (DirectoryStream<Path> paths = Files.newDirectoryStream(this.directory, "*" + EXTENSION)) {
+        for (Path path : paths) {
+          try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            entries.put(path, attributes);
+            total += attributes.size();
+          } catch (IOException e) {
+            // Deleted by another process
+          }
+        }
+      }
+
+      if (total <= this.maxBytes) {
+        return;
+      }
+
+      // Oldest first
+      List<Path> oldest = new ArrayList<>(entries.keySet());
+      oldest.sort((a, b) -> entries.get(a).lastModifiedTime().compareTo(entries.get(b).lastModifiedTime()));
+      for (Path path : oldest) {
+        if (total <= this.maxBytes) {
+          break;
+        }
+        if (delete(path)) {
+          total -= entries.get(path).size();
+        }
+      }
+    }
+  }
+
+
+  /**
+   * Gets the path of a cache entry.
+   * @param key - key of the cache entry
+   * @return path of the entry
+   */
+  private Path getPath(final String key) {
+    return this.directory.resolve(key + EXTENSION);
+  }
+
+
+  /**
+   * Deletes a file, ignoring failures.
+   * @param path - file to delete
+   * @return true if the file was deleted
+   */
+  private static boolean delete(final Path path) {
+    try {
+      return Files.deleteIfExists(path);
+    } catch (IOException e) {
+      return false;
+    }
+  }
+}
\ No newline at end of file
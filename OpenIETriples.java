@@ -0,0 +1,40 @@
+import edu.stanford.nlp.ie.util.RelationTriple;
+import edu.stanford.nlp.naturalli.NaturalLogicAnnotations;
+import edu.stanford.nlp.util.CoreMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+
+/**
+ * Reads the triples Stanford's Open Information Extractor found in a
+ * sentence (the original behavior).
+ */
+class OpenIETriples implements TripleSource {
+
+
+  @Override
+  public List<Triple> extract(final CoreMap sentence, final TripleFilter filter) {
+
+    // Get the OpenIE triples for the sentence
+    Collection<RelationTriple> relationTriples =
+      sentence.get(NaturalLogicAnnotations.RelationTriplesAnnotation.class);
+    Stats.count("triples found", relationTriples.size());
+
+    // Choose the triples worth keeping before creating any of them
+    List<RelationTriple> chosen = new ArrayList<>();
+    for (RelationTriple t : relationTriples) {
+      if (filter.accept(t.confidence, t.subject.size(), t.relation.size(), t.object.size())) {
+        chosen.add(t);
+      }
+    }
+    filter.limit(chosen, t -> t.confidence);
+
+    List<Triple> triples = new ArrayList<>(chosen.size());
+    for (RelationTriple t : chosen) {
+      triples.add(new StringTriple(t.subjectGloss(), t.relationGloss(), t.objectGloss(), t.confidence));
+    }
+    return triples;
+  }
+}
@@ -0,0 +1,265 @@
+import edu.stanford.nlp.ling.CoreAnnotations.TokensAnnotation;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.util.CoreMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Finds triples with simple patterns over part-of-speech tags, without a
+ * parser: a noun phrase, the verb group right after it, then the noun
+ * phrase after the verb group (with a preposition in between, if any, as
+ * part of the action). For example, "The city council will spend $ 5
+ * million on new roads" gives
+ *   [The city council | will spend | $ 5 million]
+ *   [The city council | will spend | $ 5 million on new roads]
+ * A verb group right after "and" shares the actor of the previous one.
+ *
+ * Far fewer triples are found than with OpenIE, and some are wrong, but
+ * only the tagger and named entity recognizer have to run. Every triple is
+ * given a confidence score of 1.0.
+ */
+class PatternTriples implements TripleSource {
+
+
+  /** Tags of the words a noun phrase can be made of */
+  private static final String[] NOUN_PHRASE = {
+    "DT", "PDT", "PRP$", "POS", "JJ", "JJR", "JJS", "CD", "$", "FW",
+    "NN", "NNS", "NNP", "NNPS", "PRP"
+  };
+
+  /** Confidence score of every triple */
+  private static final double CONFIDENCE = 1.0;
+
+
+  @Override
+  public List<Triple> extract(final CoreMap sentence, final TripleFilter filter) {
+
+    List<CoreLabel> tokens = sentence.get(TokensAnnotation.class);
+    List<Triple> triples = new ArrayList<>();
+
+    // Actor of the previous verb group, as [begin, end) token indexes
+    int actorBegin = -1;
+    int actorEnd = -1;
+
+    int i = 0;
+    while (i < tokens.size()) {
+      if (!isVerb(tokens, i)) {
+        ++i;
+        continue;
+      }
+
+      // Verb group, with the adverbs and particles inside it and just before it
+      int actionBegin = i;
+      while (actionBegin > 0 && isAdverb(tokens, actionBegin - 1)) {
+        --actionBegin;
+      }
+      int actionEnd = i + 1;
+      while (actionEnd < tokens.size()
+             && (isVerb(tokens, actionEnd)
+                 || isAdverb(tokens, actionEnd)
+                 || tag(tokens, actionEnd).equals("RP")
+                 || (tag(tokens, actionEnd).equals("TO") && isVerb(tokens, actionEnd + 1)))) {
+        ++actionEnd;
+      }
+      i = actionEnd;
+
+      // Actor: the noun phrase before, or the previous actor after "and"
+      int begin = nounPhraseBefore(tokens, actionBegin);
+      if (begin < actionBegin) {
+        actorBegin = begin;
+        actorEnd = actionBegin;
+      } else if (actionBegin == 0 || !tag(tokens, actionBegin - 1).equals("CC")) {
+        actorBegin = -1;
+      }
+      if (actorBegin < 0) {
+        continue;
+      }
+
+      // Receiver: the noun phrase after, taking a preposition into the action
+      int receiverBegin = actionEnd;
+      if (isPreposition(tokens, receiverBegin)) {
+        ++receiverBegin;
+      }
+      int receiverEnd = nounPhraseAfter(tokens, receiverBegin);
+      if (receiverEnd == receiverBegin) {
+        continue;
+      }
+      add(triples, filter, tokens, actorBegin, actorEnd, actionBegin, receiverBegin, receiverEnd);
+
+      // The receiver again, with the prepositional phrases that follow it
+      int end = receiverEnd;
+      while (isPreposition(tokens, end) && nounPhraseAfter(tokens, end + 1) > end + 1) {
+        end = nounPhraseAfter(tokens, end + 1);
+      }
+      if (end > receiverEnd) {
+        add(triples, filter, tokens, actorBegin, actorEnd, actionBegin, receiverBegin, end);
+      }
+    }
+
+    filter.limit(triples, Triple::getScore);
+    return triples;
+  }
+
+
+  /**
+   * Adds a triple if the filter keeps it. The action runs from the end of
+   * the actor up to the receiver.
+   * @param triples - triples of the sentence
+   * @param filter - decides which triples are kept
+   * @param tokens - tokens of the sentence
+   * @param actorBegin - index of the first token of the actor
+   * @param actorEnd - index after the last token of the actor
+   * @param actionBegin - index of the first token of the action
+   * @param receiverBegin - index of the first token of the receiver
+   * @param receiverEnd - index after the last token of the receiver
+   */
+  private static void add(final List<Triple> triples,
+                          final TripleFilter filter,
+                          final List<CoreLabel> tokens,
+                          final int actorBegin,
+                          final int actorEnd,
+                          final int actionBegin,
+                          final int receiverBegin,
+                          final int receiverEnd) {
+    Stats.count("triples found", 1);
+    if (filter.accept(CONFIDENCE,
+                      actorEnd - actorBegin,
+                      receiverBegin - actionBegin,
+                      receiverEnd - receiverBegin)) {
+      triples.add(new StringTriple(join(tokens, actorBegin, actorEnd),
+                                   join(tokens, actionBegin, receiverBegin),
+                                   join(tokens, receiverBegin, receiverEnd),
+                                   CONFIDENCE));
+    }
+  }
+
+
+  /**
+   * Finds the start of the noun phrase that ends right before a token.
+   * @param tokens - tokens of the sentence
+   * @param end - index after the last token of the noun phrase
+   * @return index of the first token, or end if there is no noun phrase
+   */
+  private static int nounPhraseBefore(final List<CoreLabel> tokens, final int end) {
+    int begin = end;
+    boolean head = false;
+    while (begin > 0 && isNounPhrase(tokens, begin - 1)) {
+      head |= isHead(tokens, --begin);
+    }
+    return head ? begin : end;
+  }
+
+
+  /**
+   * Finds the end of the noun phrase that starts at a token.
+   * @param tokens - tokens of the sentence
+   * @param begin - index of the first token of the noun phrase
+   * @return index after the last token, or begin if there is no noun phrase
+   */
+  private static int nounPhraseAfter(final List<CoreLabel> tokens, final int begin) {
+    int end = begin;
+    boolean head = false;
+    while (end < tokens.size() && isNounPhrase(tokens, end)) {
+      head |= isHead(tokens, end++);
+    }
+    return head ? end : begin;
+  }
+
+
+  /**
+   * Joins the words of a span of tokens, separated by spaces as OpenIE does.
+   * @param tokens - tokens of the sentence
+   * @param begin - index of the first token
+   * @param end - index after the last token
+   * @return words of the span
+   */
+  private static String join(final List<CoreLabel> tokens, final int begin, final int end) {
+    StringBuilder words = new StringBuilder(tokens.get(begin).word());
+    for (int i = begin + 1; i < end; i++) {
+      words.append(' ').append(tokens.get(i).word());
+    }
+    return words.toString();
+  }
+
+
+  /**
+   * Gets the part-of-speech tag of a token.
+   * @param tokens - tokens of the sentence
+   * @param index - index of the token
+   * @return tag, or an empty string past the end of the sentence
+   */
+  private static String tag(final List<CoreLabel> tokens, final int index) {
+    if (index >= tokens.size()) {
+      return "";
+    }
+    String tag = tokens.get(index).tag();
+    return (tag == null) ? "" : tag;
+  }
+
+
+  /**
+   * Checks whether a token is a verb or modal.
+   * @param tokens - tokens of the sentence
+   * @param index - index of the token
+   * @return true if it is
+   */
+  private static boolean isVerb(final List<CoreLabel> tokens, final int index) {
+    String tag = tag(tokens, index);
+    return tag.startsWith("VB") || tag.equals("MD");
+  }
+
+
+  /**
+   * Checks whether a token is an adverb (e.g., "not", "also").
+   * @param tokens - tokens of the sentence
+   * @param index - index of the token
+   * @return true if it is
+   */
+  private static boolean isAdverb(final List<CoreLabel> tokens, final int index) {
+    return tag(tokens, index).startsWith("RB");
+  }
+
+
+  /**
+   * Checks whether a token is a preposition.
+   * @param tokens - tokens of the sentence
+   * @param index - index of the token
+   * @return true if it is
+   */
+  private static boolean isPreposition(final List<CoreLabel> tokens, final int index) {
+    String tag = tag(tokens, index);
+    return tag.equals("IN") || tag.equals("TO");
+  }
+
+
+  /**
+   * Checks whether a token can be part of a noun phrase.
+   * @param tokens - tokens of the sentence
+   * @param index - index of the token
+   * @return true if it can
+   */
+  private static boolean isNounPhrase(final List<CoreLabel> tokens, final int index) {
+    String tag = tag(tokens, index);
+    for (String member : NOUN_PHRASE) {
+      if (tag.equals(member)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+
+  /**
+   * Checks whether a token can be the head of a noun phrase: a noun,
+   * pronoun or number.
+   * @param tokens - tokens of the sentence
+   * @param index - index of the token
+   * @return true if it can be the head
+   */
+  private static boolean isHead(final List<CoreLabel> tokens, final int index) {
+    String tag = tag(tokens, index);
+    return tag.startsWith("NN") || tag.equals("PRP") || tag.equals("CD") || tag.equals("FW");
+  }
+}
@@ -0,0 +1,155 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+
+/**
+ * Symbol table of the phrases triples are made of (actors, actions and
+ * receivers). Each distinct phrase is stored once and given an id, so
+ * triples can be kept as ids (see EncodedTriple) instead of strings.
+ *
+ * OpenIE gives many overlapping triples that repeat the same actor and
+ * action, and articles repeat phrases between them ("he", "said", "the
+ * company"), so one table can serve a document or a whole corpus. The
+ * phrases are kept as UTF-8 in a single array, without a String object
+ * each, and looked up through an open-addressing table of ids; a phrase
+ * is turned back into a String when it is read.
+ *
+ * A table can be shared by several threads; phrases are never removed.
+ */
+class Phrases {
+
+
+  /** Initial capacity of the table, in phrases */
+  private static final int INITIAL_CAPACITY = 64;
+
+  /** Bytes of every phrase, one after the other */
+  private volatile byte[] bytes = new byte[INITIAL_CAPACITY * 16];
+
+  /** Offset of each phrase in bytes, followed by the end of the last one */
+  private volatile int[] offsets = new int[INITIAL_CAPACITY + 1];
+
+  /** Hash code of each phrase */
+  private int[] hashes = new int[INITIAL_CAPACITY];
+
+  /** Open-addressing table of ids plus one, by hash code; 0 is empty */
+  private int[] slots = new int[INITIAL_CAPACITY * 2];
+
+  /** Number of phrases in the table */
+  private int size;
+
+
+  /**
+   * Gets the id of a phrase, adding the phrase if it is not in the table.
+   * @param phrase - the phrase
+   * @return id of the phrase
+   */
+  synchronized int intern(final String phrase) {
+    byte[] encoded = phrase.getBytes(StandardCharsets.UTF_8);
+    int hash = phrase.hashCode();
+    int mask = this.slots.length - 1;
+    int slot = mix(hash) & mask;
+    while (this.slots[slot] != 0) {
+      int id = this.slots[slot] - 1;
+      if (this.hashes[id] == hash && matches(id, encoded)) {
+        return id;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    // Store the bytes before the offsets, which readers look at first
+    int id = this.size;
+    int offset = this.offsets[id];
+    byte[] bytes = this.bytes;
+    if (offset + encoded.length > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, offset + encoded.length));
+    }
+    System.arraycopy(encoded, 0, bytes, offset, encoded.length);
+    this.bytes = bytes;
+    int[] offsets = this.offsets;
+    if (id + 2 > offsets.length) {
+      offsets = Arrays.copyOf(offsets, offsets.length * 2);
+      this.hashes = Arrays.copyOf(this.hashes, offsets.length);
+    }
+    offsets[id + 1] = offset + encoded.length;
+    this.offsets = offsets;
+    this.hashes[id] = hash;
+    this.slots[slot] = id + 1;
+    ++this.size;
+
+    // Keep the table at most half full
+    if (this.size * 2 > this.slots.length) {
+      rehash(this.slots.length * 2);
+    }
+    return id;
+  }
+
+
+  /**
+   * Gets the phrase of an id.
+   * @param id - id given by intern
+   * @return the phrase
+   */
+  String get(final int id) {
+    int[] offsets = this.offsets;
+    int offset = offsets[id];
+    return new String(this.bytes, offset, offsets[id + 1] - offset, StandardCharsets.UTF_8);
+  }
+
+
+  /**
+   * Gets the number of phrases in the table.
+   * @return number of distinct phrases
+   */
+  synchronized int size() {
+    return this.size;
+  }
+
+
+  /**
+   * Checks whether a phrase in the table has the given bytes.
+   * @param id - id of the phrase
+   * @param encoded - UTF-8 bytes
+   * @return true if they are the same
+   */
+  private boolean matches(final int id, final byte[] encoded) {
+    int offset = this.offsets[id];
+    if (this.offsets[id + 1] - offset != encoded.length) {
+      return false;
+    }
+    for (int i = 0; i < encoded.length; i++) {
+      if (this.bytes[offset + i] != encoded[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+
+  /**
+   * Rebuilds the table of ids with a new capacity.
+   * @param capacity - number of slots, a power of two
+   */
+  private void rehash(final int capacity) {
+    int[] slots = new int[capacity];
+    int mask = capacity - 1;
+    for (int id = 0; id < this.size; id++) {
+      int slot = mix(this.hashes[id]) & mask;
+      while (slots[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      slots[slot] = id + 1;
+    }
+    this.slots = slots;
+  }
+
+
+  /**
+   * Spreads the bits of a hash code, so that similar phrases do not cluster.
+   * @param hash - hash code
+   * @return mixed hash code
+   */
+  private static int mix(final int hash) {
+    int h = hash * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
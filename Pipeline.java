@@ -0,0 +1,540 @@
+import edu.stanford.nlp.ling.CoreAnnotation;
+import edu.stanford.nlp.ling.CoreAnnotations.SentencesAnnotation;
+import edu.stanford.nlp.ling.CoreAnnotations.TextAnnotation;
+import edu.stanford.nlp.ling.CoreAnnotations.TokensAnnotation;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import edu.stanford.nlp.util.CoreMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+/**
+ * Holds the Stanford CoreNLP pipeline.
+ * Loading the models is far more expensive than annotating a single news
+ * article, so one Pipeline is built up front and shared by every document.
+ *
+ * A parallel Pipeline splits each document into sentences first, runs the
+ * annotators that only look at one sentence (parse, depparse, natlog, openie,
+ * etc.) on several threads, and then runs the document-level annotators
+ * (dcoref) over the whole document.
+ */
+@SuppressWarnings("try")
+class Pipeline {
+
+
+  /** Annotators that split the document into sentences */
+  private static final List<String> SPLITTING = Arrays.asList("tokenize", "ssplit");
+
+  /** Annotators that need to see the whole document at once */
+  private static final List<String> DOCUMENT_LEVEL = Arrays.asList("dcoref");
+
+  /** Annotators cheap enough for sentences degraded by the budget */
+  private static final List<String> CHEAP = Arrays.asList("pos", "lemma", "ner");
+
+  /** Annotators run over every document */
+  private Profile profile;
+
+  /** Decides which of the extracted triples are kept */
+  private TripleFilter tripleFilter;
+
+  /** Chooses the triple representing each sentence */
+  private TripleScorer tripleScorer;
+
+  /** Description of the annotators and their settings */
+  private String configuration;
+
+  /** The Stanford CoreNLP pipeline running every annotator */
+  private StanfordCoreNLP pipeline;
+
+  /** Splits the document into sentences */
+  private StanfordCoreNLP splitter;
+
+  /** Annotators run on each sentence independently */
+  private StanfordCoreNLP sentenceAnnotators;
+
+  /** Annotators run on the whole document afterwards */
+  private StanfordCoreNLP documentAnnotators;
+
+  /** Parallel mode: threads annotating sentences */
+  private ExecutorService workers;
+
+  /** Every annotator of the profile, in order */
+  private List<String> annotators;
+
+  /** Annotators run on each sentence independently, in order */
+  private List<String> sentenceLevel = new ArrayList<>();
+
+  /** Annotators run on the whole document afterwards, in order */
+  private List<String> documentLevel = new ArrayList<>();
+
+  /** A pipeline of each annotator on its own, so that each can be timed */
+  private Map<String, StanfordCoreNLP> singles = new HashMap<>();
+
+  /** (Optional) sentences extracted earlier, which are not annotated again */
+  private SentenceMemo memo;
+
+  /** Latency budget of each document */
+  private Budget budget;
+
+  /** Threads annotating the sentences of one document */
+  private int threads;
+
+  /** Cheap annotators run on sentences degraded by the budget, in order */
+  private List<String> cheapLevel = new ArrayList<>();
+
+  /** Cheap annotators run on sentences degraded by the budget */
+  private StanfordCoreNLP cheapAnnotators;
+
+
+  /**
+   * Marks a sentence (or document) whose annotation was degraded to stay
+   * within the budget: a sentence only got the cheap annotators, and a
+   * document did not get the document-level annotators.
+   */
+  static class DegradedAnnotation implements CoreAnnotation<Boolean> {
+
+
+    @Override
+    public Class<Boolean> getType() {
+      return Boolean.class;
+    }
+  }
+
+
+  /**
+   * Constructor.
+   * Loads all of the annotator models of the FULL profile. Each document is
+   * annotated on the calling thread.
+   */
+  Pipeline() {
+    this(new Config(), 1);
+  }
+
+
+  /**
+   * Constructor.
+   * Loads the annotator models of the configured profile.
+   * @param config - profile and CoreNLP settings
+   * @param threads - threads annotating the sentences of one document;
+   *                  1 annotates the whole document on the calling thread
+   */
+  Pipeline(final Config config, final int threads) {
+    this(config, threads, 0);
+  }
+
+
+  /**
+   * Constructor.
+   * Loads the annotator models of the configured profile, and memoizes the
+   * sentences extracted with them.
+   * @param config - profile and CoreNLP settings
+   * @param threads - threads annotating the sentences of one document;
+   *                  1 annotates the whole document on the calling thread
+   * @param memoSentences - number of extracted sentences remembered, so that
+   *                        they are not annotated again; 0 for none
+   */
+  Pipeline(final Config config, final int threads, final int memoSentences) {
+    this(config, threads, memoSentences, null);
+  }
+
+
+  /**
+   * Constructor.
+   * Loads the annotator models of the configured profile, and memoizes the
+   * sentences extracted with them, keeping their triples as ids in a table.
+   * @param config - profile and CoreNLP settings
+   * @param threads - threads annotating the sentences of one document;
+   *                  1 annotates the whole document on the calling thread
+   * @param memoSentences - number of extracted sentences remembered, so that
+   *                        they are not annotated again; 0 for none
+   * @param phrases - (optional) table the memo keeps the phrases of triples in
+   */
+  Pipeline(final Config config, final int threads, final int memoSentences, final Phrases phrases) {
+
+    this.profile = config.getProfile();
+    this.budget = config.getBudget();
+    this.threads = threads;
+    Properties props = config.getCoreNLPProperties();
+    this.tripleFilter = config.getTripleFilter();
+    this.tripleScorer = config.getTripleScorer();
+    this.configuration = describe(this.profile, props) + "\n" + this.tripleFilter;
+
+    // Every annotator at once, for documents annotated in one go
+    this.pipeline = create(props, this.profile.getAnnotators(), true);
+
+    // Divide the annotators up by the scope they work on, for documents
+    // that are split into sentences first
+    this.annotators = Arrays.asList(this.profile.getAnnotators().split("\\s*,\\s*"));
+    for (String annotator : this.annotators) {
+      if (DOCUMENT_LEVEL.contains(annotator)) {
+        this.documentLevel.add(annotator);
+      } else if (!SPLITTING.contains(annotator)) {
+        this.sentenceLevel.add(annotator);
+      }
+      this.singles.put(annotator, create(props, annotator, false));
+    }
+
+    this.splitter = create(props, join(SPLITTING), true);
+    this.sentenceAnnotators = create(props, join(this.sentenceLevel), false);
+    if (!this.documentLevel.isEmpty()) {
+      this.documentAnnotators = create(props, join(this.documentLevel), false);
+    }
+    if (this.budget.isEnabled()) {
+      for (String annotator : this.sentenceLevel) {
+        if (CHEAP.contains(annotator)) {
+          this.cheapLevel.add(annotator);
+        }
+      }
+      this.cheapAnnotators = create(props, join(this.cheapLevel), false);
+    }
+
+    if (memoSentences > 0) {
+      this.memo = new SentenceMemo(memoSentences, phrases);
+    }
+
+    if (threads > 1) {
+      this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+        Thread thread = new Thread(runnable, "pipeline-worker");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
+
+  /**
+   * Gets the profile whose annotators are run.
+   * @return profile
+   */
+  Profile getProfile() {
+    return this.profile;
+  }
+
+
+  /**
+   * Gets the source of the triples of each annotated sentence.
+   * @return triple source
+   */
+  TripleSource getTripleSource() {
+    return this.profile.getTripleSource();
+  }
+
+
+  /**
+   * Gets the filter deciding which of the extracted triples are kept.
+   * @return triple filter
+   */
+  TripleFilter getTripleFilter() {
+    return this.tripleFilter;
+  }
+
+
+  /**
+   * Gets the scorer choosing the triple representing each sentence.
+   * @return triple scorer
+   */
+  TripleScorer getTripleScorer() {
+    return this.tripleScorer;
+  }
+
+
+  /**
+   * Gets a description of the annotators and their settings. Two pipelines
+   * with the same description extract the same triples from a text.
+   * @return description of the configuration
+   */
+  String getConfiguration() {
+    return this.configuration;
+  }
+
+
+  /**
+   * Gets the memo of sentences extracted with this pipeline.
+   * @return the memo, or null if sentences are not memoized
+   */
+  SentenceMemo getSentenceMemo() {
+    return this.memo;
+  }
+
+
+  /**
+   * Annotates a body of text. Safe to call from multiple threads.
+   * @param text - text that is to be annotated
+   * @return annotated document
+   * @throws Exception
+   */
+  Annotation annotate(final String text) throws Exception {
+
+    // Ensure there is text to process
+    if (text == null) {
+      throw new Exception("Text was null.");
+    }
+
+    Annotation doc = new Annotation(text);
+
+    if (this.workers == null && !this.budget.isEnabled()) {
+      run(this.pipeline, this.annotators, doc);
+      return doc;
+    }
+
+    run(this.splitter, SPLITTING, doc);
+    annotateSplit(doc);
+    return doc;
+  }
+
+
+  /**
+   * Splits a body of text into sentences without annotating it any further.
+   * @param text - text that is to be split
+   * @return document split into sentences
+   */
+  Annotation split(final String text) {
+    Annotation doc = new Annotation(text);
+    run(this.splitter, SPLITTING, doc);
+    return doc;
+  }
+
+
+  /**
+   * Runs the remaining annotators over a document that has been split into
+   * sentences: the sentence-level annotators (in parallel if this is a
+   * parallel pipeline), then the document-level annotators. Sentences and
+   * documents may be degraded to stay within the budget (see Budget).
+   * @param doc - document that has been split into sentences
+   * @throws Exception
+   */
+  void annotateSplit(final Annotation doc) throws Exception {
+    if (this.budget.isEnabled()) {
+      annotateWithinBudget(doc);
+      return;
+    }
+    if (this.workers == null) {
+      run(this.sentenceAnnotators, this.sentenceLevel, doc);
+    } else {
+      try (Stats.Stage stage = Stats.begin("annotate in parallel")) {
+        annotateSentences(doc.get(SentencesAnnotation.class));
+      }
+    }
+    if (this.documentAnnotators != null) {
+      run(this.documentAnnotators, this.documentLevel, doc);
+    }
+  }
+
+
+  /**
+   * Runs the remaining annotators over a document that has been split into
+   * sentences, degrading sentences that are too long or would overrun the
+   * budget, and skipping the document-level annotators if any sentence was
+   * degraded or they would overrun it. Sentences are annotated one at a time
+   * (in parallel if this is a parallel pipeline), so the budget is checked
+   * before each one.
+   * @param doc - document that has been split into sentences
+   * @throws Exception
+   */
+  private void annotateWithinBudget(final Annotation doc) throws Exception {
+
+    long start = System.nanoTime();
+    List<CoreMap> sentences = doc.get(SentencesAnnotation.class);
+    boolean[] degraded = this.budget.plan(sentences, this.threads);
+
+    List<Callable<Void>> tasks = new ArrayList<>(sentences.size());
+    for (int i = 0; i < sentences.size(); i++) {
+      CoreMap sentence = sentences.get(i);
+      boolean planned = degraded[i];
+      tasks.add(() -> {
+        annotateWithinBudget(sentence, planned || this.budget.isExceeded(start));
+        return null;
+      });
+    }
+    if (this.workers == null) {
+      for (Callable<Void> task : tasks) {
+        task.call();
+      }
+    } else {
+      try (Stats.Stage stage = Stats.begin("annotate in parallel")) {
+        invokeAll(tasks);
+      }
+    }
+
+    if (this.documentAnnotators == null) {
+      return;
+    }
+    long tokens = doc.get(TokensAnnotation.class).size();
+    boolean anyDegraded = false;
+    for (CoreMap sentence : sentences) {
+      anyDegraded |= sentence.containsKey(DegradedAnnotation.class);
+    }
+    if (anyDegraded || this.budget.isDocumentOverrun(start, tokens)) {
+      doc.set(DegradedAnnotation.class, true);
+      Stats.count("document-level annotators skipped", 1);
+      return;
+    }
+    long before = System.nanoTime();
+    run(this.documentAnnotators, this.documentLevel, doc);
+    this.budget.recordDocument(tokens, System.nanoTime() - before);
+  }
+
+
+  /**
+   * Runs the sentence-level annotators over a sentence, or only the cheap
+   * ones if the sentence is degraded.
+   * @param sentence - sentence that has been tokenized
+   * @param degraded - whether the sentence is degraded
+   */
+  private void annotateWithinBudget(final CoreMap sentence, final boolean degraded) {
+    Annotation doc = asDocument(sentence);
+    if (degraded) {
+      sentence.set(DegradedAnnotation.class, true);
+      run(this.cheapAnnotators, this.cheapLevel, doc);
+      return;
+    }
+    long before = System.nanoTime();
+    run(this.sentenceAnnotators, this.sentenceLevel, doc);
+    this.budget.recordSentence(Budget.countTokens(sentence), System.nanoTime() - before);
+  }
+
+
+  /**
+   * Runs annotators over a document. While stats are being recorded, the
+   * annotators are run one at a time so that each is measured on its own;
+   * the result is the same.
+   * @param pipeline - pipeline running all of the annotators
+   * @param annotators - names of the annotators, in order
+   * @param doc - document to be annotated
+   */
+  private void run(final StanfordCoreNLP pipeline, final List<String> annotators, final Annotation doc) {
+    if (!Stats.isRecording()) {
+      pipeline.annotate(doc);
+      return;
+    }
+    for (String annotator : annotators) {
+      try (Stats.Stage stage = Stats.begin("annotate " + annotator)) {
+        this.singles.get(annotator).annotate(doc);
+      }
+    }
+  }
+
+
+  /**
+   * Runs the sentence-level annotators over each sentence in parallel.
+   * Sentences are annotated in place, so the document keeps its original
+   * sentence order.
+   * @param sentences - sentences of a document that has been split
+   * @throws Exception
+   */
+  private void annotateSentences(final List<CoreMap> sentences) throws Exception {
+
+    List<Callable<Void>> tasks = new ArrayList<>(sentences.size());
+    for (CoreMap sentence : sentences) {
+      tasks.add(() -> {
+        this.sentenceAnnotators.annotate(asDocument(sentence));
+        return null;
+      });
+    }
+
+    invokeAll(tasks);
+  }
+
+
+  /**
+   * Runs tasks on the worker threads and waits for every one of them,
+   * surfacing the first failure.
+   * @param tasks - tasks annotating sentences
+   * @throws Exception
+   */
+  private void invokeAll(final List<Callable<Void>> tasks) throws Exception {
+    try {
+      for (Future<Void> result : this.workers.invokeAll(tasks)) {
+        result.get();
+      }
+    } catch (ExecutionException e) {
+      throw new Exception("Failed to annotate sentence.", e.getCause());
+    }
+  }
+
+
+  /**
+   * Wraps a single sentence in a document of its own.
+   * @param sentence - sentence that has been tokenized
+   * @return document containing only the sentence
+   */
+  private static Annotation asDocument(final CoreMap sentence) {
+    return asDocument(sentence.get(TextAnnotation.class), Collections.singletonList(sentence));
+  }
+
+
+  /**
+   * Wraps sentences in a document of their own.
+   * @param text - text of the sentences
+   * @param sentences - sentences that have been tokenized
+   * @return document containing only the sentences
+   */
+  static Annotation asDocument(final String text, final List<CoreMap> sentences) {
+    List<CoreLabel> tokens = new ArrayList<>();
+    for (CoreMap sentence : sentences) {
+      tokens.addAll(sentence.get(TokensAnnotation.class));
+    }
+    Annotation doc = new Annotation(text);
+    doc.set(SentencesAnnotation.class, sentences);
+    doc.set(TokensAnnotation.class, tokens);
+    return doc;
+  }
+
+
+  /**
+   * Creates a Stanford CoreNLP pipeline. Models already loaded by another
+   * pipeline are reused.
+   * @param settings - CoreNLP settings
+   * @param annotators - comma separated list of annotators
+   * @param enforceRequirements - whether annotators must follow the
+   *                              annotators they depend on
+   * @return the pipeline
+   */
+  private static StanfordCoreNLP create(final Properties settings,
+                                        final String annotators,
+                                        final boolean enforceRequirements) {
+    Properties props = new Properties();
+    props.putAll(settings);
+    props.setProperty("annotators", annotators);
+    return new StanfordCoreNLP(props, enforceRequirements);
+  }
+
+
+  /**
+   * Describes a profile and its CoreNLP settings.
+   * @param profile - annotator profile
+   * @param props - CoreNLP settings
+   * @return description of the configuration
+   */
+  private static String describe(final Profile profile, final Properties props) {
+    StringBuilder description = new StringBuilder(profile.getAnnotators());
+    for (String key : new TreeSet<>(props.stringPropertyNames())) {
+      description.append("\n").append(key).append("=").append(props.getProperty(key));
+    }
+    return description.toString();
+  }
+
+
+  /**
+   * Joins annotator names into a comma separated list.
+   * @param annotators - annotator names
+   * @return comma separated list
+   */
+  private static String join(final List<String> annotators) {
+    return String.join(", ", annotators);
+  }
+}
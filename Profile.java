@@ -0,0 +1,106 @@
+import java.util.Properties;
+
+
+/**
+ * Named sets of annotators, trading accuracy for speed, the CoreNLP settings
+ * they need and the source of triples they feed.
+ * Extractor only reads tokens, named entity tags and triples, so the
+ * annotators that do not feed into those can be dropped.
+ */
+enum Profile {
+
+
+  /**
+   * Drops coreference and the neural dependency parser, and parses with the
+   * shift-reduce parser instead of the PCFG parser (natlog needs a
+   * constituency parse).
+   */
+  FAST("tokenize, ssplit, pos, lemma, parse, ner, natlog, openie", TripleSource.OPENIE,
+       "parse.model", "edu/stanford/nlp/models/srparser/englishSR.ser.gz"),
+
+  /**
+   * Drops coreference, which nothing downstream reads, so the triples and
+   * entities are the same as FULL.
+   */
+  BALANCED("tokenize, ssplit, pos, parse, depparse, lemma, ner, natlog, openie", TripleSource.OPENIE),
+
+  /** Every annotator; the original behavior */
+  FULL("tokenize, ssplit, pos, parse, depparse, lemma, ner, dcoref, natlog, openie", TripleSource.OPENIE),
+
+  /**
+   * Drops the parsers and OpenIE. Triples are found by patterns over the
+   * part-of-speech tags instead: fewer and rougher, but an order of
+   * magnitude faster, for high-volume feeds.
+   */
+  PATTERNS("tokenize, ssplit, pos, lemma, ner", TripleSource.PATTERNS);
+
+
+  /** Comma separated list of annotators */
+  private final String annotators;
+
+  /** Finds the triples of each annotated sentence */
+  private final TripleSource tripleSource;
+
+  /** CoreNLP settings of the profile, as keys and values one after the other */
+  private final String[] settings;
+
+
+  /**
+   * Constructor.
+   * @param annotators - comma separated list of annotators
+   * @param tripleSource - finds the triples of each annotated sentence
+   * @param settings - CoreNLP settings, as keys and values one after the other
+   */
+  Profile(final String annotators, final TripleSource tripleSource, final String... settings) {
+    this.annotators = annotators;
+    this.tripleSource = tripleSource;
+    this.settings = settings;
+  }
+
+
+  /**
+   * Gets the annotators run by this profile.
+   * @return comma separated list of annotators
+   */
+  String getAnnotators() {
+    return this.annotators;
+  }
+
+
+  /**
+   * Gets the CoreNLP settings of this profile; settings of the config file
+   * take precedence over them.
+   * @return settings
+   */
+  Properties getSettings() {
+    Properties settings = new Properties();
+    for (int i = 0; i < this.settings.length; i += 2) {
+      settings.setProperty(this.settings[i], this.settings[i + 1]);
+    }
+    return settings;
+  }
+
+
+  /**
+   * Gets the source of the triples, which the annotators are meant for.
+   * @return triple source
+   */
+  TripleSource getTripleSource() {
+    return this.tripleSource;
+  }
+
+
+  /**
+   * Finds a profile by name, ignoring case.
+   * @param name - name of the profile (fast, balanced, full or patterns)
+   * @return the profile
+   */
+  static Profile forName(final String name) {
+    for (Profile profile : values()) {
+      if (profile.name().equalsIgnoreCase(name.trim())) {
+        return profile;
+      }
+    }
+    throw new IllegalArgumentException("Unknown profile: '" + name + "'.");
+  }
+}
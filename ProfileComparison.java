@@ -0,0 +1,161 @@
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * Measures the throughput and quality of every annotator Profile on the same
+ * set of files. Quality is how closely the triples kept after purging agree
+ * with the FULL profile.
+ */
+class ProfileComparison {
+
+
+  /** Times every file is summarized before measuring */
+  private static final int WARMUP_ROUNDS = 1;
+
+  /** Times every file is summarized while measuring */
+  private static final int MEASURED_ROUNDS = 3;
+
+
+  /**
+   * Runs every profile over the files and prints a table of the results.
+   * @param files - files to be summarized
+   * @param config - settings shared by every profile
+   * @throws Exception
+   */
+  static void run(final List<File> files, final Config config) throws Exception {
+
+    // Texts are read up front so that file reads are not measured
+    List<String> texts = new ArrayList<>();
+    for (File file : files) {
+      texts.add(Fyles.getText(file));
+    }
+
+    // FULL is measured first, since it is the reference for quality
+    Profile[] profiles = {Profile.FULL, Profile.BALANCED, Profile.FAST, Profile.PATTERNS};
+    List<Set<String>> reference = null;
+
+    StringBuilder table = new StringBuilder();
+    table.append("| Profile  | Load (s) | Docs/sec | Sentences/sec | Speedup | Triples kept | Agreement with FULL |\n");
+    table.append("|----------|----------|----------|---------------|---------|--------------|---------------------|\n");
+    double fullThroughput = 0;
+
+    for (Profile profile : profiles) {
+
+      // Annotators loaded for an earlier profile would otherwise be reused
+      StanfordCoreNLP.clearAnnotatorPool();
+      long start = System.nanoTime();
+      Pipeline pipeline = new Pipeline(config.withProfile(profile), 1);
+      double loadSeconds = (System.nanoTime() - start) / 1e9;
+
+      for (int round = 0; round < WARMUP_ROUNDS; round++) {
+        summarizeAll(texts, pipeline, null);
+      }
+
+      int sentences = 0;
+      List<Set<String>> triples = new ArrayList<>();
+      start = System.nanoTime();
+      for (int round = 0; round < MEASURED_ROUNDS; round++) {
+        triples.clear();
+        sentences = summarizeAll(texts, pipeline, triples);
+      }
+      double seconds = (System.nanoTime() - start) / 1e9 / MEASURED_ROUNDS;
+
+      if (reference == null) {
+        reference = triples;
+      }
+
+      double throughput = texts.size() / seconds;
+      if (profile == Profile.FULL) {
+        fullThroughput = throughput;
+      }
+
+      table.append(String.format("| %-8s | %8.1f | %8.2f | %13.1f | %6.1fx | %12d | %18.1f%% |%n",
+                                 profile.name().toLowerCase(),
+                                 loadSeconds,
+                                 throughput,
+                                 sentences / seconds,
+                                 throughput / fullThroughput,
+                                 count(triples),
+                                 100 * agreement(reference, triples)));
+    }
+
+    System.out.println(table);
+  }
+
+
+  /**
+   * Summarizes every text once.
+   * @param texts - texts to be summarized
+   * @param pipeline - pipeline used to annotate the texts
+   * @param triples - (optional) receives the triples kept for each text
+   * @return total number of sentences
+   * @throws Exception
+   */
+  private static int summarizeAll(final List<String> texts,
+                                  final Pipeline pipeline,
+                                  final List<Set<String>> triples) throws Exception {
+    int sentences = 0;
+    for (String text : texts) {
+      Network network = new Extractor(text, pipeline).getNetwork();
+      sentences += network.size();
+      Manager.cleanupSentences(network, pipeline.getTripleScorer());
+      Concatenator.fuse(network);
+
+      if (triples != null) {
+        Set<String> kept = new HashSet<>();
+        for (Sentence sentence : network) {
+          for (Triple triple : sentence.getAllTriples()) {
+            kept.add(triple.toString());
+          }
+        }
+        triples.add(kept);
+      }
+    }
+    return sentences;
+  }
+
+
+  /**
+   * Counts the triples kept across all texts.
+   * @param triples - triples kept for each text
+   * @return number of triples
+   */
+  private static int count(final List<Set<String>> triples) {
+    int count = 0;
+    for (Set<String> kept : triples) {
+      count += kept.size();
+    }
+    return count;
+  }
+
+
+  /**
+   * Gets the overlap (Jaccard similarity) between the triples kept by two
+   * profiles, over all texts.
+   * @param reference - triples kept by the reference profile
+   * @param triples - triples kept by the profile being compared
+   * @return fraction of triples that both profiles kept
+   */
+  private static double agreement(final List<Set<String>> reference,
+                                  final List<Set<String>> triples) {
+    int shared = 0;
+    int total = 0;
+    for (int i = 0; i < reference.size(); i++) {
+      Set<String> union = new HashSet<>(reference.get(i));
+      union.addAll(triples.get(i));
+      for (String triple : triples.get(i)) {
+        if (reference.get(i).contains(triple)) {
+          ++shared;
+        }
+      }
+      total += union.size();
+    }
+    return (total == 0) ? 1 : (double) shared / total;
+  }
+}
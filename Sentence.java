@@ -1,5 +1,6 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 
@@ -26,6 +27,9 @@ class Sentence {
   /** The sentence's associated named entities */
   private EntitiesList ner;
 
+  /** Dates mentioned in the sentence */
+  private List<TimeExpression> times = new ArrayList<>();
+
 
   /*
    * Constructor.
@@ -37,6 +41,27 @@ class Sentence {
   }
 
 
+  /**
+   * Copies the sentence under a new number, with its named entities, dates
+   * and triples (but not the chosen Triple).
+   * @param sentenceNumber - number of the copy
+   * @return the copy
+   */
+  Sentence copy(final int sentenceNumber) {
+    EntitiesList entities = new EntitiesList();
+    if (this.ner != null) {
+      for (Entity entity : this.ner.getEntities()) {
+        entities.add(entity.getNoun(), entity.getType(), sentenceNumber);
+      }
+    }
+    Sentence copy = new Sentence(this.sentence);
+    copy.addEntities(entities);
+    copy.setTimes(new ArrayList<>(this.times));
+    copy.setAllTriples(new ArrayList<>(this.triples));
+    return copy;
+  }
+
+
   /**
    * Add a named entities list object.
    * @param entities - list of named entities to add
@@ -47,11 +72,29 @@ class Sentence {
 
 
   /**
-   * Getter for time entities.
-   * @return time entities
+   * Getter for named entities.
+   * @return named entities
    */
-  String getTimeEntities() {
-    return this.ner.getTimeEntity();
+  EntitiesList getEntities() {
+    return this.ner;
+  }
+
+
+  /**
+   * Getter for the dates mentioned in the sentence.
+   * @return dates
+   */
+  List<TimeExpression> getTimes() {
+    return this.times;
+  }
+
+
+  /**
+   * Sets the dates mentioned in the sentence.
+   * @param times - dates
+   */
+  void setTimes(final List<TimeExpression> times) {
+    this.times = times;
   }
 
 
@@ -101,19 +144,45 @@ class Sentence {
 
 
   /**
-   * Purging Triples that have a confidence score of less than 1.000.
+   * Replaces the triples (and the representative Triple) with triples that
+   * hold their phrases as ids in a table.
+   * @param phrases - table the phrases are added to
+   */
+  void encode(final Phrases phrases) {
+    List<Triple> encoded = new ArrayList<>(this.triples.size());
+    Triple chosen = null;
+    for (Triple triple : this.triples) {
+      Triple next = EncodedTriple.encode(phrases, triple);
+      if (triple == this.triple) {
+        chosen = next;
+      }
+      encoded.add(next);
+    }
+    if (chosen == null && this.triple != null) {
+      chosen = EncodedTriple.encode(phrases, this.triple);
+    }
+    this.triples = encoded;
+    this.triple = chosen;
+  }
+
+
+  /**
+   * Purging Triples that the filter does not keep.
+   * @param filter - decides which triples are kept
    * @return list of removed Triples
    */
-  List<Triple> purge() {
-    List<Triple> removedTriples = new ArrayList<>();
-    Iterator<Triple> it = this.triples.iterator();
-    while (it.hasNext()) {
-      Triple triple = it.next();
-      if (lowScore(triple) || tooShort(triple)) {
-        removedTriples.add(triple);
-        it.remove();
+  List<Triple> purge(final TripleFilter filter) {
+    List<Triple> kept = new ArrayList<>();
+    for (Triple triple : this.triples) {
+      if (filter.accept(triple)) {
+        kept.add(triple);
       }
     }
+    filter.limit(kept, Triple::getScore);
+
+    List<Triple> removedTriples = new ArrayList<>(this.triples);
+    removedTriples.removeAll(kept);
+    this.triples = kept;
     return removedTriples;
   }
 
@@ -128,18 +197,24 @@ class Sentence {
 
 
   /**
-   * Chooses the longest Triple to represent the sentence.
+   * Chooses the highest scoring Triple to represent the sentence. Ties go to
+   * the longest Triple, and then to the first one.
+   * @param scorer - ranks the triples
    */
-  void chooseLongestTriples() {
-    Triple longestTriple = null;
-    for (Triple nextTriple : this.triples) {
-      if (longestTriple == null) {
-        longestTriple = nextTriple;
-      } else if (nextTriple.toString().length() > longestTriple.toString().length()) {
-          longestTriple = nextTriple;
+  void chooseTriple(final TripleScorer scorer) {
+    Triple bestTriple = null;
+    double bestScore = 0.0;
+    for (int i = 0; i < this.triples.size(); i++) {
+      Triple nextTriple = this.triples.get(i);
+      double nextScore = scorer.score(nextTriple, this.ner);
+      if (bestTriple == null
+          || nextScore > bestScore
+          || (nextScore == bestScore && nextTriple.getLength() > bestTriple.getLength())) {
+        bestTriple = nextTriple;
+        bestScore = nextScore;
       }
     }
-    setTriple(longestTriple);
+    setTriple(bestTriple);
   }
 
 
@@ -155,45 +230,27 @@ class Sentence {
 
 
   /**
-   * Checks for a low confidence score.
-   * @param triple - semantic triple to be checked
-   * @return true if the Triple has a score lower than 1
+   * Writes the sentence followed by its triples, one per line.
+   * @param out - where the sentence is written
+   * @throws IOException
    */
-  private boolean lowScore(Triple triple) {
-    return !triple.getScore().startsWith("1");
-  }
-
-
-  /**
-   * Checks whether the Triple is composed of 3 or less words.
-   * @param triple - semantic triple to be checked
-   * @return true if the Triple is made up of 3 or less words
-   */
-  private boolean tooShort(Triple triple) {
-    return containsOneWord(triple.getActor())  &&
-           containsOneWord(triple.getAction()) &&
-           containsOneWord(triple.getReceiver());
-  }
-
-
-  /**
-   * Checks whether the string contains less than 1 word.
-   * @param string - string to be checked
-   * @return true if string contains less than 1 word
-   */
-  private boolean containsOneWord(String string) {
-    return !string.contains(" ") || string.equals("");
+  void write(final Appendable out) throws IOException {
+    out.append(this.sentence);
+    out.append("\n");
+    for (Triple triple : this.triples) {
+      out.append("   ");
+      triple.write(out);
+    }
   }
 
 
   @Override
   public String toString() {
     StringBuilder output = new StringBuilder();
-    output.append(this.sentence);
-    output.append("\n");
-    for (Triple triple : this.triples) {
-      output.append("   ");
-      output.append(triple);
+    try {
+      write(output);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
     }
     return output.toString();
   }
@@ -0,0 +1,116 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * In-memory memo of extracted sentences, keyed by their exact text.
+ * Articles share many sentences word for word (bylines, "... contributed to
+ * this report", disclaimers, recurring background paragraphs); a sentence
+ * found in the memo is not annotated again, and its triples, named entities
+ * and dates are taken from the memo instead.
+ *
+ * A memo belongs to one Pipeline, so every sentence in it was extracted with
+ * the same annotators and settings. It holds a fixed number of sentences and
+ * forgets the least recently used one when full. It may keep the triples of
+ * its sentences as ids in a table of phrases shared by every sentence, which
+ * only grows. A memo can be shared by several threads.
+ */
+class SentenceMemo {
+
+
+  /** Maximum number of sentences held */
+  private int capacity;
+
+  /** (Optional) table the phrases of the triples are kept in */
+  private Phrases phrases;
+
+  /** Sentences by text, least recently used first */
+  private LinkedHashMap<String, Sentence> sentences;
+
+  /** Number of lookups that found a sentence */
+  private AtomicLong hits = new AtomicLong();
+
+  /** Number of lookups that did not find a sentence */
+  private AtomicLong misses = new AtomicLong();
+
+
+  /**
+   * Constructor.
+   * @param capacity - maximum number of sentences held
+   * @param phrases - (optional) table the phrases of the triples are kept in
+   */
+  SentenceMemo(final int capacity, final Phrases phrases) {
+    this.capacity = capacity;
+    this.phrases = phrases;
+    this.sentences = new LinkedHashMap<String, Sentence>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, Sentence> eldest) {
+        return size() > SentenceMemo.this.capacity;
+      }
+    };
+  }
+
+
+  /**
+   * Gets a sentence extracted earlier.
+   * @param text - text of the sentence
+   * @return the sentence (numbered 0), or null if it is not in the memo
+   */
+  Sentence get(final String text) {
+    Sentence sentence;
+    synchronized (this) {
+      sentence = this.sentences.get(text);
+    }
+    (sentence == null ? this.misses : this.hits).incrementAndGet();
+    return sentence;
+  }
+
+
+  /**
+   * Adds a sentence that has just been extracted. The memo keeps a copy of
+   * the sentence's triples, named entities and dates, so that the sentence
+   * itself may still be purged and summarized.
+   * @param sentence - extracted sentence
+   */
+  void put(final Sentence sentence) {
+    Sentence copy = sentence.copy(0);
+    if (this.phrases != null) {
+      copy.encode(this.phrases);
+    }
+    synchronized (this) {
+      this.sentences.put(copy.getSentence(), copy);
+    }
+  }
+
+
+  /**
+   * Gets the number of lookups that found a sentence.
+   * @return hits
+   */
+  long getHits() {
+    return this.hits.get();
+  }
+
+
+  /**
+   * Gets the number of lookups that did not find a sentence.
+   * @return misses
+   */
+  long getMisses() {
+    return this.misses.get();
+  }
+
+
+  /**
+   * Describes how often sentences were found in the memo.
+   * @return statistics
+   */
+  String getStatistics() {
+    String statistics = "Sentence memo: " + getHits() + " hits, " + getMisses() + " misses";
+    if (this.phrases != null) {
+      statistics += ", " + this.phrases.size() + " phrases";
+    }
+    return statistics;
+  }
+}
@@ -0,0 +1,256 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Long-running summarization server.
+ * The pipeline is loaded once when the server starts, so each request only
+ * pays for annotating its own document.
+ *
+ * POST a document to /summarize and the summary is returned as plain text.
+ * Adding '?meta' to the request appends the metadata after the summary.
+ */
+class Server {
+
+
+  /** Seconds given to in-flight requests when shutting down */
+  private static final int SHUTDOWN_GRACE_SECONDS = 30;
+
+  /** The pipeline shared by every request */
+  private Pipeline pipeline;
+
+  /** (Optional) cache of previously extracted text */
+  private NetworkCache cache;
+
+  /** (Optional) documents extracted earlier, to find near-duplicates in */
+  private DuplicateDetector duplicates;
+
+  /** The HTTP server listening for documents */
+  private HttpServer server;
+
+  /** Worker threads handling requests */
+  private ExecutorService workers;
+
+
+  /**
+   * Constructor.
+   * Binds the server to a local port; requests are not accepted until the
+   * server is started.
+   * @param port - port to listen on
+   * @param threads - number of requests handled concurrently
+   * @param pipeline - loaded pipeline shared by all requests
+   * @param cache - (optional) cache of previously extracted text
+   * @param duplicates - (optional) documents extracted earlier, to find near-duplicates in
+   * @throws IOException
+   */
+  Server(final int port,
+         final int threads,
+         final Pipeline pipeline,
+         final NetworkCache cache,
+         final DuplicateDetector duplicates) throws IOException {
+    this.pipeline = pipeline;
+    this.cache = cache;
+    this.duplicates = duplicates;
+    this.workers = Executors.newFixedThreadPool(threads);
+    this.server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+    this.server.createContext("/summarize", new SummarizeHandler());
+    this.server.setExecutor(this.workers);
+  }
+
+
+  /**
+   * Starts accepting requests. The server is stopped cleanly when the JVM
+   * is asked to shut down (e.g., Ctrl-C or SIGTERM).
+   */
+  void start() {
+    Runtime.getRuntime().addShutdownHook(new Thread(this::stop));
+    this.server.start();
+    System.out.println("Listening on " + this.server.getAddress());
+  }
+
+
+  /**
+   * Stops accepting new requests and waits for in-flight requests to finish.
+   */
+  void stop() {
+    this.server.stop(SHUTDOWN_GRACE_SECONDS);
+    this.workers.shutdown();
+    try {
+      if (!this.workers.awaitTermination(SHUTDOWN_GRACE_SECONDS, TimeUnit.SECONDS)) {
+        this.workers.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      this.workers.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+    if (this.cache != null) {
+      System.out.println(this.cache.getStatistics());
+    }
+    if (this.duplicates != null) {
+      System.out.println(this.duplicates.getStatistics());
+    }
+    if (this.pipeline.getSentenceMemo() != null) {
+      System.out.println(this.pipeline.getSentenceMemo().getStatistics());
+    }
+  }
+
+
+  /**
+   * Summarizes a single document and sends the summary as it is written.
+   * @param exchange - the request being responded to
+   * @param text - normalized text of the document
+   * @param includeMetadata - whether the metadata is appended to the summary
+   * @param story - (optional) id of the story the document is a version of
+   * @throws Exception
+   */
+  private void summarize(final HttpExchange exchange,
+                         final String text,
+                         final boolean includeMetadata,
+                         final String story) throws Exception {
+
+    Extractor extractor = new Extractor(text, this.pipeline, this.cache, story, this.duplicates);
+
+    // Get the network and process it
+    Network network = extractor.getNetwork();
+    Manager.cleanupSentences(network, this.pipeline.getTripleScorer());
+
+    // The length is not known up front, so the response is sent in chunks
+    exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+    if (extractor.isDegraded()) {
+      exchange.getResponseHeaders().set("X-Degraded", "true");
+    }
+    exchange.sendResponseHeaders(200, 0);
+    try (Writer writer = new BufferedWriter(
+           new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+      Concatenator.fuse(network, writer);
+      if (includeMetadata) {
+        writer.write("\n\n");
+        network.write(writer);
+        extractor.getNER().write(writer);
+      }
+    }
+  }
+
+
+  /**
+   * Reads the body of a request as lines of text.
+   * @param exchange - the request
+   * @return lines of the request body
+   * @throws IOException
+   */
+  private static List<String> readLines(final HttpExchange exchange) throws IOException {
+    List<String> lines = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(
+           new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lines.add(line);
+      }
+    }
+    return lines;
+  }
+
+
+  /**
+   * Gets the value of a parameter of a query string, e.g., 'story=a%20b',
+   * or of a flag without a value, e.g., 'meta'.
+   * @param query - (optional) raw query string of the request
+   * @param name - name of the parameter
+   * @return decoded value ("" for a flag), or null if the parameter is not there
+   * @throws IOException
+   */
+  private static String getParameter(final String query, final String name) throws IOException {
+    if (query == null) {
+      return null;
+    }
+    for (String parameter : query.split("&")) {
+      int equals = parameter.indexOf('=');
+      String key = (equals < 0) ? parameter : parameter.substring(0, equals);
+      if (URLDecoder.decode(key, "UTF-8").equals(name)) {
+        return (equals < 0) ? "" : URLDecoder.decode(parameter.substring(equals + 1), "UTF-8");
+      }
+    }
+    return null;
+  }
+
+
+  /**
+   * Sends a plain text response and closes the exchange.
+   * @param exchange - the request being responded to
+   * @param status - HTTP status code
+   * @param body - text of the response
+   * @throws IOException
+   */
+  private static void respond(final HttpExchange exchange,
+                              final int status,
+                              final String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+
+  /**
+   * Handles requests to /summarize.
+   */
+  private class SummarizeHandler implements HttpHandler {
+
+
+    @Override
+    public void handle(final HttpExchange exchange) throws IOException {
+      try {
+
+        if (!exchange.getRequestMethod().equals("POST")) {
+          respond(exchange, 405, "Documents must be sent with POST.\n");
+          return;
+        }
+
+        String text = Fyles.normalize(readLines(exchange));
+        if (text.length() == 0) {
+          respond(exchange, 400, "Document was empty.\n");
+          return;
+        }
+
+        String query = exchange.getRequestURI().getRawQuery();
+        boolean includeMetadata = getParameter(query, "meta") != null;
+
+        String story = getParameter(query, "story");
+        if (story != null && Server.this.cache == null) {
+          respond(exchange, 400, "Stories need the server to run with --cache.\n");
+          return;
+        }
+
+        summarize(exchange, text, includeMetadata, story);
+
+      } catch (Exception e) {
+        e.printStackTrace();
+        // Once the summary has started, the client can only see a cut response
+        if (exchange.getResponseCode() == -1) {
+          respond(exchange, 500, "Failed to summarize document.\n");
+        }
+      } finally {
+        exchange.close();
+      }
+    }
+  }
+}
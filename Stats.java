@@ -0,0 +1,389 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Records where the time goes while one document is summarized: the wall
+ * time, CPU time and bytes allocated by each stage (reading, each CoreNLP
+ * annotator, extraction, each cleanup pass, fusing and writing), and
+ * counts such as characters, sentences and triples kept.
+ *
+ * Stats belong to the thread summarizing the document, so the stages do not
+ * need to be handed a Stats object: code marks a stage with
+ *   try (Stats.Stage stage = Stats.begin("extract")) { ... }
+ * which costs a single thread-local lookup when nothing is being recorded.
+ * The stage is never referenced in the block, which javac's -Xlint:try warns
+ * about, so classes that mark stages suppress "try".
+ * CPU time and allocations are those of the recording thread; sentences
+ * annotated on other threads (-p) only count towards wall time.
+ */
+class Stats {
+
+
+  /** Reads the CPU time of threads */
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+  /** Reads the bytes allocated by threads, if the JVM can */
+  private static final com.sun.management.ThreadMXBean ALLOCATIONS =
+    (THREADS instanceof com.sun.management.ThreadMXBean) ? (com.sun.management.ThreadMXBean) THREADS : null;
+
+  /** Stats of the document the current thread is summarizing */
+  private static final ThreadLocal<Stats> CURRENT = new ThreadLocal<>();
+
+  /** Stage returned when nothing is being recorded */
+  private static final Stage NOT_RECORDING = () -> { };
+
+  /** Index of each measure of a stage */
+  private static final int CALLS = 0, WALL = 1, CPU = 2, ALLOCATED = 3;
+
+  /** Name of the document */
+  private String document;
+
+  /** Measures of each stage, in the order the stages first ran */
+  private Map<String, long[]> stages = new LinkedHashMap<>();
+
+  /** Counts, in the order they were first made */
+  private Map<String, Long> counts = new LinkedHashMap<>();
+
+  /** Measures of the whole document */
+  private long[] total = new long[4];
+
+  /** Measure of the whole document, while it is being summarized */
+  private Measure whole;
+
+
+  /**
+   * Constructor.
+   * @param document - name of the document
+   */
+  private Stats(final String document) {
+    this.document = document;
+  }
+
+
+  /**
+   * A stage being measured; closing it records the measures.
+   */
+  interface Stage extends AutoCloseable {
+
+
+    @Override
+    void close();
+  }
+
+
+  /**
+   * Starts recording the stats of a document on the current thread.
+   * @param document - name of the document
+   * @return the stats, filled in until finish is called
+   */
+  static Stats start(final String document) {
+    Stats stats = new Stats(document);
+    CURRENT.set(stats);
+    stats.whole = new Measure(stats.total);
+    return stats;
+  }
+
+
+  /**
+   * Stops recording on the current thread.
+   */
+  void finish() {
+    if (this.whole != null) {
+      this.whole.close();
+      this.whole = null;
+    }
+    if (CURRENT.get() == this) {
+      CURRENT.remove();
+    }
+  }
+
+
+  /**
+   * Checks whether the current thread is recording stats.
+   * @return true if it is
+   */
+  static boolean isRecording() {
+    return CURRENT.get() != null;
+  }
+
+
+  /**
+   * Starts measuring a stage, if the current thread is recording. A stage
+   * that runs several times (e.g., once per window) adds up.
+   * @param name - name of the stage
+   * @return the stage, to be closed when it ends
+   */
+  static Stage begin(final String name) {
+    Stats stats = CURRENT.get();
+    if (stats == null) {
+      return NOT_RECORDING;
+    }
+    return new Measure(stats.stages.computeIfAbsent(name, key -> new long[4]));
+  }
+
+
+  /**
+   * Adds to a count, if the current thread is recording.
+   * @param name - name of the count
+   * @param amount - amount added
+   */
+  static void count(final String name, final long amount) {
+    Stats stats = CURRENT.get();
+    if (stats != null) {
+      stats.counts.merge(name, amount, Long::sum);
+    }
+  }
+
+
+  /**
+   * Writes the stats as a table.
+   * @param out - where the table is written
+   * @throws IOException
+   */
+  void write(final Appendable out) throws IOException {
+    out.append("Stats for ").append(this.document).append(":\n");
+    out.append("| Stage                | Calls | Wall (ms) | CPU (ms) | Allocated (MB) |\n");
+    out.append("|----------------------|-------|-----------|----------|----------------|\n");
+    for (Map.Entry<String, long[]> stage : this.stages.entrySet()) {
+      writeRow(out, stage.getKey(), stage.getValue());
+    }
+    writeRow(out, "total", this.total);
+    for (Map.Entry<String, Long> count : this.counts.entrySet()) {
+      out.append(count.getKey()).append(": ").append(Long.toString(count.getValue())).append("\n");
+    }
+  }
+
+
+  /**
+   * Writes the stats as a single line of JSON, e.g.,
+   * {"document":"a.txt","total":{"calls":1,"wallNanos":..,"cpuNanos":..,
+   * "allocatedBytes":..},"stages":{"read":{..},..},"counts":{"sentences":12,..}}
+   * CPU time and allocations are -1 if the JVM cannot measure them.
+   * @param out - where the line is written
+   * @throws IOException
+   */
+  void writeJson(final Appendable out) throws IOException {
+    out.append("{\"document\":");
+    writeJsonString(out, this.document);
+    out.append(",\"total\":");
+    writeJsonMeasures(out, this.total);
+    out.append(",\"stages\":{");
+    String separator = "";
+    for (Map.Entry<String, long[]> stage : this.stages.entrySet()) {
+      out.append(separator);
+      writeJsonString(out, stage.getKey());
+      out.append(':');
+      writeJsonMeasures(out, stage.getValue());
+      separator = ",";
+    }
+    out.append("},\"counts\":{");
+    separator = "";
+    for (Map.Entry<String, Long> count : this.counts.entrySet()) {
+      out.append(separator);
+      writeJsonString(out, count.getKey());
+      out.append(':').append(Long.toString(count.getValue()));
+      separator = ",";
+    }
+    out.append("}}\n");
+  }
+
+
+  /**
+   * Writes a row of the table.
+   * @param out - where the row is written
+   * @param name - name of the stage
+   * @param measures - measures of the stage
+   * @throws IOException
+   */
+  private static void writeRow(final Appendable out, final String name, final long[] measures)
+      throws IOException {
+    out.append(String.format("| %-20s | %5d | %9.1f | %8s | %14s |%n",
+                             name,
+                             measures[CALLS],
+                             measures[WALL] / 1e6,
+                             (measures[CPU] < 0) ? "n/a" : String.format("%.1f", measures[CPU] / 1e6),
+                             (measures[ALLOCATED] < 0) ? "n/a"
+                                 : String.format("%.1f", measures[ALLOCATED] / (1024.0 * 1024.0))));
+  }
+
+
+  /**
+   * Writes the measures of a stage as a JSON object.
+   * @param out - where the object is written
+   * @param measures - measures of the stage
+   * @throws IOException
+   */
+  private static void writeJsonMeasures(final Appendable out, final long[] measures) throws IOException {
+    out.append("{\"calls\":").append(Long.toString(measures[CALLS]))
+       .append(",\"wallNanos\":").append(Long.toString(measures[WALL]))
+       .append(",\"cpuNanos\":").append(Long.toString(measures[CPU]))
+       .append(",\"allocatedBytes\":").append(Long.toString(measures[ALLOCATED]))
+       .append('}');
+  }
+
+
+  /**
+   * Writes a JSON string, escaping quotes, backslashes and control characters.
+   * @param out - where the string is written
+   * @param string - the string
+   * @throws IOException
+   */
+  private static void writeJsonString(final Appendable out, final String string) throws IOException {
+    out.append('"');
+    for (int i = 0; i < string.length(); i++) {
+      char c = string.charAt(i);
+      if (c == '"' || c == '\\') {
+        out.append('\\').append(c);
+      } else if (c < 0x20) {
+        out.append(String.format("\\u%04x", (int) c));
+      } else {
+        out.append(c);
+      }
+    }
+    out.append('"');
+  }
+
+
+  /**
+   * Gets the CPU time of the current thread.
+   * @return nanoseconds, or -1 if the JVM cannot measure it
+   */
+  private static long cpuTime() {
+    return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+  }
+
+
+  /**
+   * Gets the bytes allocated by the current thread so far.
+   * @return bytes, or -1 if the JVM cannot measure it
+   */
+  private static long allocatedBytes() {
+    if (ALLOCATIONS == null || !ALLOCATIONS.isThreadAllocatedMemorySupported()) {
+      return -1;
+    }
+    return ALLOCATIONS.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+
+  /**
+   * Measures a stage from the moment it is created until it is closed.
+   */
+  private static class Measure implements Stage {
+
+
+    /** Measures the stage adds to */
+    private long[] measures;
+
+    /** Wall time, CPU time and bytes allocated at the start */
+    private long wall, cpu, allocated;
+
+
+    /**
+     * Constructor.
+     * @param measures - measures the stage adds to
+     */
+    Measure(final long[] measures) {
+      this.measures = measures;
+      this.allocated = allocatedBytes();
+      this.cpu = cpuTime();
+      this.wall = System.nanoTime();
+    }
+
+
+    @Override
+    public void close() {
+      long wall = System.nanoTime();
+      long cpu = cpuTime();
+      long allocated = allocatedBytes();
+      this.measures[CALLS] += 1;
+      this.measures[WALL] += wall - this.wall;
+      this.measures[CPU] = add(this.measures[CPU], this.cpu, cpu);
+      this.measures[ALLOCATED] = add(this.measures[ALLOCATED], this.allocated, allocated);
+    }
+
+
+    /**
+     * Adds the difference of two readings to a measure.
+     * @param measure - measure so far, or -1 if it cannot be measured
+     * @param start - reading at the start
+     * @param end - reading at the end
+     * @return the new measure, or -1 if it cannot be measured
+     */
+    private static long add(final long measure, final long start, final long end) {
+      if (measure < 0 || start < 0 || end < 0) {
+        return -1;
+      }
+      return measure + end - start;
+    }
+  }
+
+
+  /**
+   * Reports the stats of each document as it is summarized: as a table on
+   * standard error and/or as JSON lines appended to a file. Safe to use from
+   * several threads. Closing it closes the file.
+   */
+  static class Reporter implements Closeable {
+
+
+    /** Whether the table is printed */
+    private boolean print;
+
+    /** (Optional) file the JSON lines are appended to */
+    private Writer json;
+
+
+    /**
+     * Constructor.
+     * @param print - whether the table is printed on standard error
+     * @param jsonFile - (optional) file the JSON lines are appended to
+     * @throws IOException
+     */
+    Reporter(final boolean print, final File jsonFile) throws IOException {
+      this.print = print;
+      if (jsonFile != null) {
+        this.json = Files.newBufferedWriter(jsonFile.toPath(),
+                                            StandardCharsets.UTF_8,
+                                            StandardOpenOption.CREATE,
+                                            StandardOpenOption.APPEND);
+      }
+    }
+
+
+    /**
+     * Reports the stats of a document.
+     * @param stats - stats of the document
+     * @throws IOException
+     */
+    synchronized void report(final Stats stats) throws IOException {
+      if (this.print) {
+        StringBuilder table = new StringBuilder();
+        stats.write(table);
+        System.err.print(table);
+      }
+      if (this.json != null) {
+        stats.writeJson(this.json);
+        this.json.flush();
+      }
+    }
+
+
+    @Override
+    public synchronized void close() throws IOException {
+      if (this.json != null) {
+        this.json.close();
+        this.json = null;
+      }
+    }
+  }
+}
@@ -0,0 +1,57 @@
+/**
+ * A triple whose actor, action and receiver are strings of their own, as
+ * the extractor makes them.
+ */
+class StringTriple extends Triple {
+
+
+  private String actor, action, receiver;
+
+
+  /**
+   * Constructor.
+   * Creates a Triple, containing a single actor-action-receiver triple.
+   * Confidence score is set to 0.
+   * @param actor - subject
+   * @param action - verb or verb phrase
+   * @param receiver - direct object or object of predicate
+   */
+  protected StringTriple(final String actor, final String action, final String receiver) {
+    this(actor, action, receiver, 0.0);
+  }
+
+
+  /**
+   * Constructor.
+   * Creates a Triple containing a single actor-action-receiver triple
+   * and a confidence score.
+   * @param actor - subject
+   * @param action - verb or verb phrase
+   * @param receiver - direct object or object of predicate
+   * @param score - confidence score assigned to each Triple
+   */
+  StringTriple(final String actor, final String action, final String receiver, final double score) {
+    super(score, actor.length() + action.length() + receiver.length());
+    this.actor = actor;
+    this.action = action;
+    this.receiver = receiver;
+  }
+
+
+  @Override
+  String getActor() {
+    return this.actor;
+  }
+
+
+  @Override
+  String getAction() {
+    return this.action;
+  }
+
+
+  @Override
+  String getReceiver() {
+    return this.receiver;
+  }
+}
@@ -0,0 +1,188 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+
+/**
+ * Reads a file in windows of normalized text, so that a file of any size can
+ * be processed without holding all of it in memory.
+ * Lines are normalized exactly as Fyles.getText does it: joined together
+ * into one body of text, the windows are identical to Fyles.getText.
+ *
+ * A window ends at the first line break after the window size is reached.
+ * A single line that is far longer than the window size is cut at a
+ * whitespace instead.
+ */
+class TextWindows implements Closeable {
+
+
+  /** Windows longer than this many times the window size are cut mid-line */
+  private static final int MAX_WINDOW_FACTOR = 2;
+
+  /** Source of the text */
+  private Reader reader;
+
+  /** Minimum size of a window in characters */
+  private int windowChars;
+
+  /** Window being built */
+  private StringBuilder text = new StringBuilder();
+
+  /** Whitespace held back, since trailing whitespace of a line is trimmed */
+  private StringBuilder pendingSpace = new StringBuilder();
+
+  /** Whether the current line has any non-whitespace characters */
+  private boolean started = false;
+
+  /** Last non-whitespace character of the current line */
+  private char last;
+
+  /** Whether the current line has a character that '.' does not match in a regex */
+  private boolean hasLineSeparator = false;
+
+  /** Whether the previous character was a carriage return */
+  private boolean afterCarriageReturn = false;
+
+  /** Character read but not yet used, or -1 */
+  private int unread = -1;
+
+  /** Whether the end of the file has been reached */
+  private boolean done = false;
+
+
+  /**
+   * Constructor.
+   * @param document - file to be read
+   * @param windowChars - minimum size of a window in characters
+   * @throws IOException
+   */
+  TextWindows(final File document, final int windowChars) throws IOException {
+    this(Files.newBufferedReader(document.toPath(), StandardCharsets.UTF_8), windowChars);
+  }
+
+
+  /**
+   * Constructor.
+   * @param reader - source of the text
+   * @param windowChars - minimum size of a window in characters
+   */
+  TextWindows(final Reader reader, final int windowChars) {
+    this.reader = (reader instanceof BufferedReader) ? reader : new BufferedReader(reader);
+    this.windowChars = windowChars;
+  }
+
+
+  /**
+   * Reads the next window of normalized text.
+   * @return the next window, or null once the whole file has been read
+   * @throws IOException
+   */
+  String next() throws IOException {
+
+    while (!this.done) {
+
+      int c = this.unread;
+      if (c >= 0) {
+        this.unread = -1;
+      } else {
+        c = this.reader.read();
+      }
+
+      // End of file finishes the last line
+      if (c < 0) {
+        endLine();
+        this.done = true;
+        break;
+      }
+
+      // Line breaks: '\n', '\r' or "\r\n"
+      if (c == '\n' && this.afterCarriageReturn) {
+        this.afterCarriageReturn = false;
+        continue;
+      }
+      this.afterCarriageReturn = (c == '\r');
+      if (c == '\n' || c == '\r') {
+        endLine();
+        if (this.text.length() >= this.windowChars) {
+          return take();
+        }
+        continue;
+      }
+
+      // Whitespace (as in String.trim) is only kept if the line continues
+      if (c <= ' ') {
+        if (this.started) {
+          this.pendingSpace.append((char) c);
+        }
+        continue;
+      }
+
+      // A very long line is cut at a whitespace
+      if (this.pendingSpace.length() != 0
+          && this.text.length() >= (long) MAX_WINDOW_FACTOR * this.windowChars) {
+        this.unread = c;
+        return take();
+      }
+
+      this.text.append(this.pendingSpace);
+      this.pendingSpace.setLength(0);
+      this.text.append((char) c);
+      this.started = true;
+      this.last = (char) c;
+      if (c == '\u0085' || c == '\u2028' || c == '\u2029') {
+        this.hasLineSeparator = true;
+      }
+    }
+
+    return (this.text.length() == 0) ? null : take();
+  }
+
+
+  /**
+   * Closes the file.
+   * @throws IOException
+   */
+  @Override
+  public void close() throws IOException {
+    this.reader.close();
+  }
+
+
+  /**
+   * Ends the current line, making sure it ends with punctuation.
+   */
+  private void endLine() {
+    if (this.started) {
+      boolean punctuated = !this.hasLineSeparator && isPunctuation(this.last);
+      this.text.append(punctuated ? " " : ". ");
+    }
+    this.pendingSpace.setLength(0);
+    this.started = false;
+    this.hasLineSeparator = false;
+  }
+
+
+  /**
+   * Hands over the window built so far and starts a new one.
+   * @return the window
+   */
+  private String take() {
+    String window = this.text.toString();
+    this.text.setLength(0);
+    return window;
+  }
+
+
+  /**
+   * Checks for ASCII punctuation (as matched by \p{Punct}).
+   * @param c - character to be checked
+   * @return true if the character is punctuation
+   */
+  private static boolean isPunctuation(final char c) {
+    return c < 128 && "!\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~".indexOf(c) >= 0;
+  }
+}
@@ -0,0 +1,323 @@
+/**
+ * A date mentioned in a sentence, e.g., "March 12, 1990" or "the 1990s".
+ * Built once from a span of DATE (or TIME) tokens and the normalized value
+ * Stanford's SUTime gives it (e.g., "1990-03-12", "199X", "XXXX-03",
+ * "1990-SU", "XXXX-WXX-1"), so the parts of the date never need to be
+ * parsed again.
+ */
+class TimeExpression {
+
+
+  /** Value of a part of the date that is not known */
+  static final int UNKNOWN = -1;
+
+  /** Seasons, as written in normalized values */
+  private static final String[] SEASONS = { "SP", "SU", "FA", "WI" };
+
+  /** Text of the span, tokens separated by spaces */
+  private String text;
+
+  /** Normalized value of the span; empty if there is none */
+  private String value;
+
+  /** Words of the span that identify the date: numbers and names */
+  private String[] words;
+
+  /** Year, or the first year of the decade or century */
+  private int year = UNKNOWN;
+
+  /** Number of digits of the year that are known: 4, 3 (decade) or 2 (century) */
+  private int yearDigits = 0;
+
+  /** Month, 1 to 12 */
+  private int month = UNKNOWN;
+
+  /** Day of the month */
+  private int day = UNKNOWN;
+
+  /** Day of the week, 1 (Monday) to 7 */
+  private int weekday = UNKNOWN;
+
+  /** Season, 0 (spring) to 3 (winter) */
+  private int season = UNKNOWN;
+
+
+  /**
+   * Constructor.
+   * @param text - text of the span, tokens separated by spaces
+   * @param value - normalized value of the span (may be null)
+   */
+  TimeExpression(final String text, final String value) {
+    this.text = text;
+    this.value = (value == null) ? "" : value;
+    this.words = splitWords(text);
+    if (!this.value.isEmpty()) {
+      parseValue(this.value);
+    } else if (this.words.length == 1) {
+      parseYear(this.words[0]);
+    }
+  }
+
+
+  /**
+   * Gets the text of the span.
+   * @return text, tokens separated by spaces
+   */
+  String getText() {
+    return this.text;
+  }
+
+
+  /**
+   * Gets the normalized value of the span.
+   * @return normalized value; empty if there is none
+   */
+  String getValue() {
+    return this.value;
+  }
+
+
+  /**
+   * Gets the words of the span that identify the date: numbers and names
+   * (e.g., "March" and "1990", but not "the" or "of").
+   * @return words
+   */
+  String[] getWords() {
+    return this.words;
+  }
+
+
+  /**
+   * Gets the year, or the first year of the decade or century.
+   * @return year, or UNKNOWN
+   */
+  int getYear() {
+    return this.year;
+  }
+
+
+  /**
+   * Gets the number of digits of the year that are known.
+   * @return 4 for a year, 3 for a decade, 2 for a century, 0 if unknown
+   */
+  int getYearDigits() {
+    return this.yearDigits;
+  }
+
+
+  /**
+   * Gets the month.
+   * @return month from 1 to 12, or UNKNOWN
+   */
+  int getMonth() {
+    return this.month;
+  }
+
+
+  /**
+   * Gets the day of the month.
+   * @return day, or UNKNOWN
+   */
+  int getDay() {
+    return this.day;
+  }
+
+
+  /**
+   * Gets the day of the week.
+   * @return day of the week from 1 (Monday) to 7, or UNKNOWN
+   */
+  int getWeekday() {
+    return this.weekday;
+  }
+
+
+  /**
+   * Gets the season.
+   * @return season from 0 (spring) to 3 (winter), or UNKNOWN
+   */
+  int getSeason() {
+    return this.season;
+  }
+
+
+  /**
+   * Reads the parts of a normalized date: year, then month, season or
+   * week, then day. The time of day, if any, is ignored.
+   * @param value - normalized value
+   */
+  private void parseValue(final String value) {
+
+    int end = value.indexOf('T');
+    if (end < 0) {
+      end = value.length();
+    }
+
+    // Year
+    int dash = dashOrEnd(value, 0, end);
+    parseYear(value.substring(0, dash));
+    if (dash == end) {
+      return;
+    }
+
+    // Month, season or week
+    int begin = dash + 1;
+    dash = dashOrEnd(value, begin, end);
+    String part = value.substring(begin, dash);
+    boolean week = false;
+    if (part.length() == 2 && isNumber(part)) {
+      this.month = checkRange(Integer.parseInt(part), 1, 12);
+    } else if (part.length() > 0 && part.charAt(0) == 'W') {
+      week = true;
+    } else {
+      for (int i = 0; i < SEASONS.length; i++) {
+        if (part.equals(SEASONS[i])) {
+          this.season = i;
+        }
+      }
+    }
+    if (dash == end) {
+      return;
+    }
+
+    // Day of the month, or of the week
+    part = value.substring(dash + 1, dashOrEnd(value, dash + 1, end));
+    if (!isNumber(part)) {
+      return;
+    }
+    if (week && part.length() == 1) {
+      this.weekday = checkRange(Integer.parseInt(part), 1, 7);
+    } else if (!week && this.month != UNKNOWN && part.length() == 2) {
+      this.day = checkRange(Integer.parseInt(part), 1, 31);
+    }
+  }
+
+
+  /**
+   * Reads a year, decade or century: "1990", "199X" or "19XX" as normalized,
+   * or "1990s" as written.
+   * @param part - the year
+   */
+  private void parseYear(final String part) {
+    int digits = 0;
+    while (digits < part.length() && Character.isDigit(part.charAt(digits))) {
+      ++digits;
+    }
+
+    // "1990s" is a decade, "1900s" a century
+    if (digits == 4 && part.length() == 5 && part.charAt(4) == 's') {
+      int decade = Integer.parseInt(part.substring(0, 4));
+      if (decade % 10 == 0) {
+        this.year = decade;
+        this.yearDigits = (decade % 100 == 0) ? 2 : 3;
+      }
+      return;
+    }
+
+    // "1990", "199X" or "19XX"
+    if (digits < 2 || part.length() != 4) {
+      return;
+    }
+    for (int i = digits; i < 4; i++) {
+      if (part.charAt(i) != 'X') {
+        return;
+      }
+    }
+    int first = Integer.parseInt(part.substring(0, digits));
+    for (int i = digits; i < 4; i++) {
+      first *= 10;
+    }
+    this.year = first;
+    this.yearDigits = digits;
+  }
+
+
+  /**
+   * Finds the next dash of a normalized value.
+   * @param value - normalized value
+   * @param begin - index the search starts at
+   * @param end - index the search stops at
+   * @return index of the dash, or end if there is none
+   */
+  private static int dashOrEnd(final String value, final int begin, final int end) {
+    int dash = value.indexOf('-', begin);
+    return (dash < 0 || dash > end) ? end : dash;
+  }
+
+
+  /**
+   * Checks whether a string is made of digits only.
+   * @param string - string to be checked
+   * @return true if it is a non-empty run of digits
+   */
+  private static boolean isNumber(final String string) {
+    for (int i = 0; i < string.length(); i++) {
+      if (!Character.isDigit(string.charAt(i))) {
+        return false;
+      }
+    }
+    return string.length() > 0;
+  }
+
+
+  /**
+   * Keeps a number that is within range.
+   * @param number - number
+   * @param min - smallest valid number
+   * @param max - largest valid number
+   * @return the number, or UNKNOWN if it is out of range
+   */
+  private static int checkRange(final int number, final int min, final int max) {
+    return (number < min || number > max) ? UNKNOWN : number;
+  }
+
+
+  /**
+   * Splits text into the words that identify the date.
+   * @param text - tokens separated by spaces
+   * @return words with a digit or starting with a capital letter; all of
+   *         them if there are none of those (e.g., "summer")
+   */
+  private static String[] splitWords(final String text) {
+    String[] tokens = text.split(" ");
+    int count = 0;
+    for (String token : tokens) {
+      if (isIdentifying(token)) {
+        tokens[count++] = token;
+      }
+    }
+    if (count == 0) {
+      return text.isEmpty() ? new String[0] : text.split(" ");
+    }
+    String[] words = new String[count];
+    System.arraycopy(tokens, 0, words, 0, count);
+    return words;
+  }
+
+
+  /**
+   * Checks whether a token is a number or a name.
+   * @param token - token
+   * @return true if it has a digit or starts with a capital letter
+   */
+  private static boolean isIdentifying(final String token) {
+    if (token.isEmpty()) {
+      return false;
+    }
+    if (Character.isUpperCase(token.charAt(0))) {
+      return true;
+    }
+    for (int i = 0; i < token.length(); i++) {
+      if (Character.isDigit(token.charAt(i))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+
+  @Override
+  public String toString() {
+    return this.text + " -> " + this.value;
+  }
+}
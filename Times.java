@@ -1,4 +1,3 @@
-import java.util.Arrays;
 import java.util.List;
 
 
@@ -24,92 +23,97 @@ class Times {
     "December"
   };
 
+  /** Days of the week, starting on Monday */
+  private static String[] weekdays = {
+    "Monday",
+    "Tuesday",
+    "Wednesday",
+    "Thursday",
+    "Friday",
+    "Saturday",
+    "Sunday"
+  };
 
-  /**
-   * Removes all extraneous time named entity information.
-   * @param timeTokens - parsed named entity information
-   * @return filtered time information
-   */
-  private static String[] removeExtraneousDateInfo(String[] timeTokens) {
-
-    List<String> tokens = Arrays.asList(timeTokens);
+  /** Seasons, starting with spring */
+  private static String[] seasons = {
+    "spring",
+    "summer",
+    "fall",
+    "winter"
+  };
 
-    int monthCounter = 0;
-    int tokenCounter = 0;
 
-    for (String token : tokens) {
-      for (String month : months) {
-        if (token.trim().equalsIgnoreCase(month)) {
-          if (++monthCounter > 1) {
-            return tokens.subList(0, tokenCounter).toArray(new String[tokens.size()]);
-          }
-        }
+  /**
+   * Chooses the date to be added to a sentence: the first one that can be
+   * written out.
+   * @param times - dates mentioned in the original sentence
+   * @return the date, or null if there is none
+   */
+  static TimeExpression chooseDate(final List<TimeExpression> times) {
+    for (TimeExpression time : times) {
+      if (canBeWritten(time)) {
+        return time;
       }
-      ++tokenCounter;
     }
-    return timeTokens;
+    return null;
   }
 
 
   /**
-   * Checks the date format and provide the appropriate preposition.
-   * @param timeInformation - the named entity time information
-   * @return the preposition to be appended to the sentence
+   * Checks whether enough of a date is known to write it out.
+   * @param time - the date
+   * @return true if a month, day of the week, season or year is known
    */
-  static String getDateAndPreposition(final String timeInformation) {
-    String[] tokens = timeInformation.trim().split("\\s+");
-    final int numberOfElements = tokens.length;
-
-    // Delete unnecessary month information
-    String[] timeTokens = removeExtraneousDateInfo(tokens);
-
-    switch (numberOfElements) {
-
-      // One word
-      case (1):
-
-        // Only a simple year like "1990"
-        if (timeTokens[0].trim().matches("\\d{4}")) {
-          return " in" + createString(timeTokens);
-        }
-
-        // Only a year, but has an "s" like "1990's"
-        if (timeTokens[0].trim().matches("\\d{4}s")) {
-          return " in the" + createString(timeTokens);
-        }
-
-        break;
-
-      // Three words
-      case (3):
-
-        for (String month : months) {
-          if (timeTokens[0].trim().compareTo(month) == 0) {
-            return " on" + createString(timeTokens);
-          }
-        }
-
-        break;
-
-    } // end of switch
-
-    return "";
+  static boolean canBeWritten(final TimeExpression time) {
+    return time.getMonth() != TimeExpression.UNKNOWN
+        || time.getWeekday() != TimeExpression.UNKNOWN
+        || time.getSeason() != TimeExpression.UNKNOWN
+        || time.getYearDigits() != 0;
   }
 
 
   /**
-   * Creates a String from a String array.
-   * @param array - array to be made into a String
-   * @return String representation of the array
+   * Writes out a date with the appropriate preposition, e.g., " on March 12,
+   * 1990", " in March 1990", " in the summer of 1990", " on Monday",
+   * " in 1990" or " in the 1990s".
+   * @param time - the date
+   * @return the date and preposition to be appended to the sentence, or an
+   *         empty string if the date cannot be written out
    */
-  private static String createString(String[] array) {
-    String time = "";
-    for (String s : array) {
-      if (s != null && s.equals("")) {
-        time += " ";
-        time += s;
+  static String getDateAndPreposition(final TimeExpression time) {
+
+    StringBuilder date = new StringBuilder();
+    boolean withYear = time.getYearDigits() == 4;
+
+    if (time.getMonth() != TimeExpression.UNKNOWN && time.getDay() != TimeExpression.UNKNOWN) {
+      // Month and day: " on March 12, 1990"
+      date.append(" on ").append(months[time.getMonth() - 1]).append(' ').append(time.getDay());
+      if (withYear) {
+        date.append(", ").append(time.getYear());
+      }
+    } else if (time.getWeekday() != TimeExpression.UNKNOWN) {
+      // Day of the week: " on Monday"
+      date.append(" on ").append(weekdays[time.getWeekday() - 1]);
+    } else if (time.getMonth() != TimeExpression.UNKNOWN) {
+      // Month: " in March 1990"
+      date.append(" in ").append(months[time.getMonth() - 1]);
+      if (withYear) {
+        date.append(' ').append(time.getYear());
       }
+    } else if (time.getSeason() != TimeExpression.UNKNOWN) {
+      // Season: " in the summer of 1990"
+      date.append(" in the ").append(seasons[time.getSeason()]);
+      if (withYear) {
+        date.append(" of ").append(time.getYear());
+      }
+    } else if (withYear) {
+      // Only a year: " in 1990"
+      date.append(" in ").append(time.getYear());
+    } else if (time.getYearDigits() != 0) {
+      // Decade or century: " in the 1990s"
+      date.append(" in the ").append(time.getYear()).append('s');
     }
-    return time;
+
+    return date.toString();
   }
 }
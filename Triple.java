@@ -1,39 +1,33 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+
 /**
  * Representation of a single triple.
+ * Subclasses hold the actor, action and receiver: StringTriple as strings,
+ * EncodedTriple as ids in a table of phrases. Code reading a triple goes
+ * through the getters.
  */
-public class Triple {
+public abstract class Triple {
 
 
-  private String actor, action, receiver, score;
+  private double score;
 
+  /** Number of characters in the actor, action and receiver */
+  private int length;
 
-  /**
-   * Constructor.
-   * Creates a Triple, containing a single actor-action-receiver triple.
-   * Confidence score is set to empty String.
-   * @param actor - subject
-   * @param action - verb or verb phrase
-   * @param receiver - direct object or object of predicate
-   */
-  protected Triple(final String actor, final String action, final String receiver) {
-    this(actor, action, receiver, "");
-  }
+  /** Number of the sentence's named entities mentioned; -1 until counted */
+  private int entityCoverage = -1;
 
 
   /**
    * Constructor.
-   * Creates a Triple containing a single actor-action-receiver triple
-   * and a confidence score.
-   * @param actor - subject
-   * @param action - verb or verb phrase
-   * @param receiver - direct object or object of predicate
    * @param score - confidence score assigned to each Triple
+   * @param length - number of characters in the actor, action and receiver
    */
-  Triple(final String actor, final String action, final String receiver, final String score) {
-    this.actor = actor;
-    this.action = action;
-    this.receiver = receiver;
+  protected Triple(final double score, final int length) {
     this.score = score;
+    this.length = length;
   }
 
 
@@ -41,42 +35,113 @@ public class Triple {
    * Getter for actor.
    * @return actor
    */
-  String getActor() {
-    return this.actor;
-  }
+  abstract String getActor();
 
 
   /**
    * Getter for action.
    * @return action
    */
-  String getAction() {
-    return this.action;
-  }
+  abstract String getAction();
 
 
   /**
    * Getter for receiver.
    * @return receiver
    */
-  String getReceiver() {
-    return this.receiver;
-  }
+  abstract String getReceiver();
 
 
   /**
    * Getter for score.
    * @return score
    */
-  String getScore() {
+  double getScore() {
     return this.score;
   }
 
 
+  /**
+   * Gets the number of characters in the actor, action and receiver.
+   * @return length of the triple
+   */
+  int getLength() {
+    return this.length;
+  }
+
+
+  /**
+   * Gets the number of named entities that the triple mentions as a whole
+   * word. Counted the first time and kept afterwards.
+   * @param entities - named entities of the triple's sentence (may be null)
+   * @return number of named entities mentioned
+   */
+  int getEntityCoverage(final EntitiesList entities) {
+    if (this.entityCoverage < 0) {
+      int count = 0;
+      if (entities != null) {
+        String actor = getActor();
+        String action = getAction();
+        String receiver = getReceiver();
+        for (Entity entity : entities.getEntities()) {
+          String noun = entity.getNoun();
+          if (containsWord(actor, noun)
+              || containsWord(action, noun)
+              || containsWord(receiver, noun)) {
+            ++count;
+          }
+        }
+      }
+      this.entityCoverage = count;
+    }
+    return this.entityCoverage;
+  }
+
+
+  /**
+   * Checks whether a string contains a word that is not part of a longer word.
+   * @param string - string to be searched
+   * @param word - word to be found
+   * @return true if the word was found
+   */
+  private static boolean containsWord(final String string, final String word) {
+    if (word.isEmpty()) {
+      return false;
+    }
+    int index = string.indexOf(word);
+    while (index >= 0) {
+      int end = index + word.length();
+      if ((index == 0 || !Character.isLetterOrDigit(string.charAt(index - 1)))
+          && (end == string.length() || !Character.isLetterOrDigit(string.charAt(end)))) {
+        return true;
+      }
+      index = string.indexOf(word, index + 1);
+    }
+    return false;
+  }
+
+
+  /**
+   * Writes the triple as '[actor | action | receiver]' and a line break.
+   * @param out - where the triple is written
+   * @throws IOException
+   */
+  void write(final Appendable out) throws IOException {
+    out.append("[").append(getActor())
+       .append(" | ").append(getAction())
+       .append(" | ").append(getReceiver())
+       .append("]\n");
+  }
+
+
   @Override
   public String toString() {
-    return "[" + this.actor    + " | " +
-                 this.action   + " | " +
-                 this.receiver + "]\n";
+    StringBuilder output = new StringBuilder();
+    try {
+      write(output);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return output.toString();
   }
 }
\ No newline at end of file
@@ -0,0 +1,198 @@
+import java.util.List;
+import java.util.Properties;
+import java.util.function.ToDoubleFunction;
+
+
+/**
+ * Decides which triples are worth keeping.
+ * Extraction asks the filter before a Triple is created, using only the
+ * confidence score and the number of words in each part, so rejected
+ * relations are never turned into strings.
+ *
+ * Settings (keys of the config file):
+ *   triples.minConfidence  - lowest confidence score kept (default 1.0);
+ *                            compared to 3 decimal places, as scores are reported
+ *   triples.minWords       - fewest words in the whole triple (default 0)
+ *   triples.minLongestPart - fewest words in the longest of the actor, action
+ *                            and receiver (default 2, i.e., a triple of three
+ *                            single words is dropped)
+ *   triples.maxPerSentence - most triples kept per sentence, highest scores
+ *                            first (default 0, no limit)
+ */
+class TripleFilter {
+
+
+  /** Prefix of every setting of the filter */
+  static final String PREFIX = "triples.";
+
+  /** Scores are compared at the precision they are reported with */
+  private static final double PRECISION = 1000.0;
+
+  /** Lowest confidence score kept, scaled by PRECISION */
+  private long minConfidence = 1000;
+
+  /** Fewest words in the whole triple */
+  private int minWords = 0;
+
+  /** Fewest words in the longest part of the triple */
+  private int minLongestPart = 2;
+
+  /** Most triples kept per sentence; 0 keeps all of them */
+  private int maxPerSentence = 0;
+
+
+  /**
+   * Constructor.
+   * Creates a filter with the default settings.
+   */
+  TripleFilter() {
+  }
+
+
+  /**
+   * Constructor.
+   * Reads the settings starting with 'triples.'; missing ones keep their default.
+   * @param props - settings
+   */
+  TripleFilter(final Properties props) {
+    String confidence = props.getProperty(PREFIX + "minConfidence");
+    if (confidence != null) {
+      this.minConfidence = scale(parse(confidence, "minConfidence"));
+    }
+    this.minWords = parseCount(props, "minWords", this.minWords);
+    this.minLongestPart = parseCount(props, "minLongestPart", this.minLongestPart);
+    this.maxPerSentence = parseCount(props, "maxPerSentence", this.maxPerSentence);
+  }
+
+
+  /**
+   * Checks whether a triple is kept.
+   * @param confidence - confidence score of the triple
+   * @param actorWords - number of words in the actor
+   * @param actionWords - number of words in the action
+   * @param receiverWords - number of words in the receiver
+   * @return true if the triple is kept
+   */
+  boolean accept(final double confidence,
+                 final int actorWords,
+                 final int actionWords,
+                 final int receiverWords) {
+    return scale(confidence) >= this.minConfidence
+        && actorWords + actionWords + receiverWords >= this.minWords
+        && Math.max(actorWords, Math.max(actionWords, receiverWords)) >= this.minLongestPart;
+  }
+
+
+  /**
+   * Checks whether an existing Triple is kept (e.g., one loaded from metadata).
+   * @param triple - the triple
+   * @return true if the triple is kept
+   */
+  boolean accept(final Triple triple) {
+    return accept(triple.getScore(),
+                  countWords(triple.getActor()),
+                  countWords(triple.getAction()),
+                  countWords(triple.getReceiver()));
+  }
+
+
+  /**
+   * Drops the lowest scoring triples of a sentence until no more than
+   * maxPerSentence are left. The rest stay in their original order; of equal
+   * scores, the later triple is dropped first.
+   * @param triples - triples of a sentence
+   * @param confidence - gets the confidence score of a triple
+   * @param <T> - type of the triples
+   */
+  <T> void limit(final List<T> triples, final ToDoubleFunction<T> confidence) {
+    if (this.maxPerSentence == 0) {
+      return;
+    }
+    while (triples.size() > this.maxPerSentence) {
+      int lowest = 0;
+      for (int i = 1; i < triples.size(); i++) {
+        if (confidence.applyAsDouble(triples.get(i)) <= confidence.applyAsDouble(triples.get(lowest))) {
+          lowest = i;
+        }
+      }
+      triples.remove(lowest);
+    }
+  }
+
+
+  /**
+   * Counts the words of a part of a triple (words are separated by a space).
+   * @param string - actor, action or receiver
+   * @return number of words
+   */
+  private static int countWords(final String string) {
+    if (string.isEmpty()) {
+      return 0;
+    }
+    int words = 1;
+    for (int i = 0; i < string.length(); i++) {
+      if (string.charAt(i) == ' ') {
+        ++words;
+      }
+    }
+    return words;
+  }
+
+
+  /**
+   * Rounds a confidence score to the precision it is reported with.
+   * @param confidence - confidence score
+   * @return scaled score
+   */
+  private static long scale(final double confidence) {
+    return Math.round(confidence * PRECISION);
+  }
+
+
+  /**
+   * Parses a number setting.
+   * @param value - value of the setting
+   * @param name - name of the setting, used in the error message
+   * @return the number
+   */
+  private static double parse(final String value, final String name) {
+    try {
+      return Double.parseDouble(value.trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid " + PREFIX + name + ": '" + value + "'.");
+    }
+  }
+
+
+  /**
+   * Parses a setting that is a count.
+   * @param props - settings
+   * @param name - name of the setting without the prefix
+   * @param defaultValue - value if the setting is missing
+   * @return the count
+   */
+  private static int parseCount(final Properties props, final String name, final int defaultValue) {
+    String value = props.getProperty(PREFIX + name);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      int count = Integer.parseInt(value.trim());
+      if (count < 0) {
+        throw new NumberFormatException();
+      }
+      return count;
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid " + PREFIX + name + ": '" + value + "'.");
+    }
+  }
+
+
+  @Override
+  public String toString() {
+    return PREFIX + "minConfidence=" + (this.minConfidence / PRECISION)
+         + "\n" + PREFIX + "minWords=" + this.minWords
+         + "\n" + PREFIX + "minLongestPart=" + this.minLongestPart
+         + "\n" + PREFIX + "maxPerSentence=" + this.maxPerSentence;
+  }
+}
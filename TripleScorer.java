@@ -0,0 +1,46 @@
+/**
+ * Ranks the triples of a sentence to choose the one that represents it.
+ * Scorers only read features a Triple computes once and keeps, so choosing
+ * a triple does not allocate.
+ */
+interface TripleScorer {
+
+
+  /** Prefers the longest triple (the original behavior) */
+  TripleScorer LONGEST = (triple, entities) -> triple.getLength();
+
+  /** Prefers the triple OpenIE is most confident about */
+  TripleScorer CONFIDENCE = (triple, entities) -> triple.getScore();
+
+  /** Prefers the triple mentioning most of the sentence's named entities */
+  TripleScorer ENTITIES = (triple, entities) -> triple.getEntityCoverage(entities);
+
+
+  /**
+   * Scores a triple; the highest scoring triple represents the sentence.
+   * @param triple - triple of the sentence
+   * @param entities - named entities of the sentence (may be null)
+   * @return score of the triple
+   */
+  double score(Triple triple, EntitiesList entities);
+
+
+  /**
+   * Gets a scorer by name, ignoring case.
+   * @param name - longest, confidence or entities
+   * @return the scorer
+   */
+  static TripleScorer forName(final String name) {
+    switch (name.trim().toLowerCase()) {
+      case "longest":
+        return LONGEST;
+      case "confidence":
+        return CONFIDENCE;
+      case "entities":
+        return ENTITIES;
+      default:
+        throw new IllegalArgumentException("Unknown triple scorer '" + name + "'. "
+                                         + "Expected one of: longest, confidence, entities.");
+    }
+  }
+}
@@ -0,0 +1,29 @@
+import edu.stanford.nlp.util.CoreMap;
+
+import java.util.List;
+
+
+/**
+ * Finds the triples of an annotated sentence. Extractor reads the tokens,
+ * named entities and dates itself, so a source only decides where triples
+ * come from; every source feeds the same Network and summary.
+ * Each annotator Profile names the source its annotators are meant for.
+ */
+interface TripleSource {
+
+
+  /** OpenIE's relations (needs the natlog and openie annotators) */
+  TripleSource OPENIE = new OpenIETriples();
+
+  /** Patterns over part-of-speech tags (needs only the pos annotator) */
+  TripleSource PATTERNS = new PatternTriples();
+
+
+  /**
+   * Finds the triples of a sentence that the filter keeps.
+   * @param sentence - annotated sentence
+   * @param filter - decides which triples are kept
+   * @return triples kept, in the order they were found
+   */
+  List<Triple> extract(CoreMap sentence, TripleFilter filter);
+}
@@ -0,0 +1,109 @@
+package summarizer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures the near-duplicate check run on each document before it is
+ * annotated: signing its text, and looking the signature up among the
+ * documents kept. The documents are generated from a vocabulary of common
+ * words; half of the lookups are edited copies of a kept document (a few
+ * words changed) and half are new documents.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DuplicateDetectorBenchmark {
+
+
+  /** Number of documents kept */
+  @Param({"10000"})
+  public int documents;
+
+  /** Words of each document */
+  @Param({"800"})
+  public int words;
+
+  /** Least similarity of near-duplicates */
+  @Param({"0.8"})
+  public double threshold;
+
+  /** Documents kept */
+  private DuplicateDetector detector;
+
+  /** Texts looked up */
+  private String[] texts;
+
+  /** Signatures of the texts looked up */
+  private int[][] signatures;
+
+  /** Text looked up next */
+  private int next;
+
+
+  @Setup
+  public void setup() throws IOException {
+    Random random = new Random(42);
+    String[] vocabulary = new String[5000];
+    for (int i = 0; i < vocabulary.length; i++) {
+      vocabulary[i] = Integer.toString(i * 7919, 36);
+    }
+    this.detector = new DuplicateDetector(this.threshold, Long.MAX_VALUE);
+    String[] kept = new String[this.documents];
+    for (int d = 0; d < this.documents; d++) {
+      kept[d] = text(random, vocabulary, null);
+      this.detector.add(DuplicateDetector.sign(kept[d]), new Network(), new EntitiesList());
+    }
+    this.texts = new String[1024];
+    this.signatures = new int[this.texts.length][];
+    for (int i = 0; i < this.texts.length; i++) {
+      this.texts[i] = (i % 2 == 0) ? text(random, vocabulary, kept[random.nextInt(kept.length)])
+                                   : text(random, vocabulary, null);
+      this.signatures[i] = DuplicateDetector.sign(this.texts[i]);
+    }
+  }
+
+
+  @Benchmark
+  public int[] sign() {
+    this.next = (this.next + 1) % this.texts.length;
+    return DuplicateDetector.sign(this.texts[this.next]);
+  }
+
+
+  @Benchmark
+  public Metadata find() throws IOException {
+    this.next = (this.next + 1) % this.signatures.length;
+    return this.detector.find(this.signatures[this.next]);
+  }
+
+
+  /**
+   * Generates a document, or an edited copy of one.
+   * @param random - random numbers
+   * @param vocabulary - words the document is made of
+   * @param original - (optional) document whose copy has a few words changed
+   * @return the document
+   */
+  private String text(final Random random, final String[] vocabulary, final String original) {
+    String[] words = new String[this.words];
+    if (original != null) {
+      words = original.split(" ");
+      for (int i = 0; i < 3; i++) {
+        words[random.nextInt(words.length)] = vocabulary[random.nextInt(vocabulary.length)];
+      }
+    } else {
+      for (int i = 0; i < words.length; i++) {
+        words[i] = vocabulary[(int) (Math.pow(random.nextDouble(), 3) * vocabulary.length)];
+      }
+    }
+    return String.join(" ", words);
+  }
+}
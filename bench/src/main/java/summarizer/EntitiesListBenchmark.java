@@ -0,0 +1,189 @@
+package summarizer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures the named entities of a document with thousands of them: adding
+ * them, and finding those of a sentence or of a type with the indexes
+ * (entitiesIn, entitiesOfType) and by going through every entity as before
+ * (entitiesInByScan, entitiesOfTypeByScan).
+ *
+ * 'footprint' reports the live heap held by the entities as 'kilobytes';
+ * JMH adds up such counters over iterations and forks, so it runs a single
+ * measured iteration in a single fork, with the parallel collector (the
+ * serial collector can under-report the heap in use after System.gc). Add '-prof gc' to see the bytes each
+ * step allocates.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EntitiesListBenchmark {
+
+
+  /** Types of named entity */
+  private static final String[] TYPES = {
+    "PERSON", "LOCATION", "ORGANIZATION", "DATE", "NUMBER", "MONEY", "MISC"
+  };
+
+  /** Number of sentences of the document */
+  @Param({"2000"})
+  public int sentences;
+
+  /** Number of distinct named entities of the document */
+  @Param({"5000"})
+  public int entities;
+
+  /** Entities mentioned by each sentence */
+  @Param({"4"})
+  public int mentions;
+
+  /** Nouns, types and sentence numbers, in the order they are added */
+  private String[] nouns;
+  private String[] types;
+  private int[] sentenceNumbers;
+
+  /** Entities of the whole document, with the indexes built */
+  private EntitiesList document;
+
+  /** Entities being measured by footprint */
+  private EntitiesList built;
+
+  /** Sentence looked up next */
+  private int next;
+
+
+  /**
+   * Live heap held by the entities, in kilobytes.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Heap {
+
+
+    public long kilobytes;
+
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      this.kilobytes = 0;
+    }
+  }
+
+
+  @Setup
+  public void setup() {
+    Random random = new Random(42);
+    int count = this.sentences * this.mentions;
+    this.nouns = new String[count];
+    this.types = new String[count];
+    this.sentenceNumbers = new int[count];
+    for (int i = 0; i < count; i++) {
+      // Every entity is mentioned once, and some of them again
+      int entity = (i < this.entities) ? i : random.nextInt(this.entities);
+      this.nouns[i] = "Entity " + entity;
+      // Types come from many sentences, so are different String objects
+      this.types[i] = new String(TYPES[entity % TYPES.length]);
+      this.sentenceNumbers[i] = i / this.mentions;
+    }
+    this.document = build();
+    this.document.getEntitiesIn(0);
+    this.document.getEntitiesOfType(TYPES[0]);
+  }
+
+
+  @Benchmark
+  public EntitiesList add() {
+    return build();
+  }
+
+
+  @Benchmark
+  public List<Entity> entitiesIn() {
+    this.next = (this.next + 1) % this.sentences;
+    return this.document.getEntitiesIn(this.next);
+  }
+
+
+  @Benchmark
+  public List<Entity> entitiesInByScan() {
+    this.next = (this.next + 1) % this.sentences;
+    List<Entity> found = new ArrayList<>();
+    for (Entity entity : this.document.getEntities()) {
+      for (int sentenceNumber : entity.getSentenceNumbers()) {
+        if (sentenceNumber == this.next) {
+          found.add(entity);
+          break;
+        }
+      }
+    }
+    return found;
+  }
+
+
+  @Benchmark
+  public List<Entity> entitiesOfType() {
+    this.next = (this.next + 1) % TYPES.length;
+    return this.document.getEntitiesOfType(TYPES[this.next]);
+  }
+
+
+  @Benchmark
+  public List<Entity> entitiesOfTypeByScan() {
+    this.next = (this.next + 1) % TYPES.length;
+    List<Entity> found = new ArrayList<>();
+    for (Entity entity : this.document.getEntities()) {
+      if (entity.getType().equals(TYPES[this.next])) {
+        found.add(entity);
+      }
+    }
+    return found;
+  }
+
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Measurement(iterations = 1)
+  @Fork(value = 1, jvmArgsAppend = "-XX:+UseParallelGC")
+  public void footprint(final Heap heap) {
+    long before = liveHeap();
+    this.built = build();
+    this.built.getEntitiesIn(0);
+    this.built.getEntitiesOfType(TYPES[0]);
+    heap.kilobytes = (liveHeap() - before) / 1024;
+    this.built = null;
+  }
+
+
+  /**
+   * Adds every named entity of the document to a new list.
+   * @return named entities
+   */
+  private EntitiesList build() {
+    EntitiesList list = new EntitiesList();
+    for (int i = 0; i < this.nouns.length; i++) {
+      list.add(this.nouns[i], this.types[i], this.sentenceNumbers[i]);
+    }
+    return list;
+  }
+
+
+  /**
+   * Collects garbage and gets the heap still in use.
+   * @return bytes in use
+   */
+  private static long liveHeap() {
+    System.gc();
+    System.gc();
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+}
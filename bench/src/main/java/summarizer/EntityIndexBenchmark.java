@@ -0,0 +1,123 @@
+package summarizer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures looking up entities in an index of millions of mentions: by
+ * noun (every type) and by noun and type. The index is built once, in a
+ * temporary directory, from generated documents; entities are picked with
+ * a skewed distribution, so a few are mentioned in many documents and most
+ * in a few.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EntityIndexBenchmark {
+
+
+  /** Types of named entity */
+  private static final String[] TYPES = { "PERSON", "LOCATION", "ORGANIZATION", "DATE" };
+
+  /** Number of documents indexed */
+  @Param({"20000"})
+  public int documents;
+
+  /** Number of distinct entities */
+  @Param({"200000"})
+  public int entities;
+
+  /** Mentions of each document */
+  @Param({"100"})
+  public int mentions;
+
+  /** Directory holding the index */
+  private File directory;
+
+  /** The index being looked up */
+  private EntityIndex index;
+
+  /** Entities looked up */
+  private String[] nouns;
+
+  /** Entity looked up next */
+  private int next;
+
+
+  @Setup
+  public void setup() throws IOException {
+    this.directory = Files.createTempDirectory("entity-index").toFile();
+    Random random = new Random(42);
+    try (EntityIndex writer = new EntityIndex(this.directory)) {
+      for (int d = 0; d < this.documents; d++) {
+        EntitiesList ner = new EntitiesList();
+        for (int m = 0; m < this.mentions; m++) {
+          int entity = pick(random);
+          ner.add(noun(entity), TYPES[entity % TYPES.length], 1 + m / 4);
+        }
+        writer.add("/corpus/article-" + d + ".txt", ner);
+      }
+    }
+    this.index = new EntityIndex(this.directory);
+    this.nouns = new String[1024];
+    for (int i = 0; i < this.nouns.length; i++) {
+      this.nouns[i] = noun(pick(random));
+    }
+  }
+
+
+  @TearDown
+  public void tearDown() {
+    for (File file : this.directory.listFiles()) {
+      file.delete();
+    }
+    this.directory.delete();
+  }
+
+
+  @Benchmark
+  public List<EntityIndex.Mention> lookup() throws IOException {
+    this.next = (this.next + 1) % this.nouns.length;
+    return this.index.lookup(this.nouns[this.next], null);
+  }
+
+
+  @Benchmark
+  public List<EntityIndex.Mention> lookupWithType() throws IOException {
+    this.next = (this.next + 1) % this.nouns.length;
+    String noun = this.nouns[this.next];
+    int entity = Integer.parseInt(noun.substring(noun.lastIndexOf(' ') + 1));
+    return this.index.lookup(noun, TYPES[entity % TYPES.length]);
+  }
+
+
+  /**
+   * Picks an entity, the lower numbers far more often.
+   * @param random - random numbers
+   * @return entity number
+   */
+  private int pick(final Random random) {
+    double skew = random.nextDouble();
+    return (int) (skew * skew * skew * this.entities);
+  }
+
+
+  /**
+   * Gets the noun of an entity.
+   * @param entity - entity number
+   * @return noun
+   */
+  private static String noun(final int entity) {
+    return "Entity " + entity;
+  }
+}
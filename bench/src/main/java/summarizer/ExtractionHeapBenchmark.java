@@ -0,0 +1,143 @@
+package summarizer;
+
+import edu.stanford.nlp.ling.CoreAnnotation;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.util.ArrayCoreMap;
+import edu.stanford.nlp.util.CoreMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures the live heap halfway through extracting a document, when each
+ * sentence is released as soon as it is extracted ('retained' false, the
+ * current behavior) and when the whole annotated document stays reachable
+ * until the end ('retained' true, the previous behavior).
+ *
+ * The sentences are synthetic, so no CoreNLP models are needed: each has
+ * tagged tokens and a payload standing in for its parse trees and
+ * dependency graphs. The heap is reported as 'midwayMegabytes'; JMH adds
+ * up such counters over iterations and forks, so there is a single measured
+ * iteration in a single fork.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExtractionHeapBenchmark {
+
+
+  /** Words of every sentence, with their part-of-speech tags */
+  private static final String[][] WORDS = {
+    { "The", "DT" }, { "city", "NN" }, { "council", "NN" }, { "of", "IN" }, { "Boston", "NNP" },
+    { "will", "MD" }, { "spend", "VB" }, { "$", "$" }, { "5", "CD" }, { "million", "CD" },
+    { "on", "IN" }, { "new", "JJ" }, { "roads", "NNS" }, { "next", "JJ" }, { "year", "NN" },
+    { ",", "," }, { "Mayor", "NNP" }, { "Smith", "NNP" }, { "said", "VBD" }, { ".", "." }
+  };
+
+  /** Number of sentences of the document */
+  @Param({"2000"})
+  public int sentences;
+
+  /** Kilobytes of parse trees and dependency graphs of each sentence */
+  @Param({"32"})
+  public int annotationKilobytes;
+
+  /** Whether the annotated document stays reachable during extraction */
+  @Param({"false", "true"})
+  public boolean retained;
+
+  /** The annotated document */
+  private List<CoreMap> document;
+
+
+  /**
+   * Stands in for the heavy annotations of a sentence.
+   */
+  public static class ParseAnnotation implements CoreAnnotation<long[]> {
+
+
+    @Override
+    public Class<long[]> getType() {
+      return long[].class;
+    }
+  }
+
+
+  /**
+   * Live heap in megabytes, measured halfway through extraction.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Heap {
+
+
+    public long midwayMegabytes;
+
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      this.midwayMegabytes = 0;
+    }
+  }
+
+
+  @Setup(Level.Invocation)
+  public void setup() {
+    this.document = new ArrayList<>(this.sentences);
+    for (int i = 0; i < this.sentences; i++) {
+      List<CoreLabel> tokens = new ArrayList<>();
+      StringBuilder text = new StringBuilder();
+      for (String[] word : WORDS) {
+        CoreLabel token = new CoreLabel();
+        token.setWord(word[0]);
+        token.set(CoreAnnotations.TextAnnotation.class, word[0]);
+        token.setTag(word[1]);
+        token.setNER(word[1].equals("NNP") ? "PERSON" : "O");
+        tokens.add(token);
+        text.append(word[0]).append(' ');
+      }
+      CoreMap sentence = new ArrayCoreMap();
+      sentence.set(CoreAnnotations.TextAnnotation.class, text.toString());
+      sentence.set(CoreAnnotations.TokensAnnotation.class, tokens);
+      sentence.set(ParseAnnotation.class, new long[this.annotationKilobytes * 128]);
+      this.document.add(sentence);
+    }
+  }
+
+
+  @Benchmark
+  public Network extract(final Heap heap, final Blackhole blackhole) {
+    List<CoreMap> held = this.retained ? new ArrayList<>(this.document) : null;
+    int midway = this.sentences / 2;
+    int[] extracted = { 0 };
+    TripleSource probe = (sentence, filter) -> {
+      if (++extracted[0] == midway) {
+        heap.midwayMegabytes = liveHeap();
+      }
+      return TripleSource.PATTERNS.extract(sentence, filter);
+    };
+    Network network = new Extractor(this.document, probe, new TripleFilter()).getNetwork();
+    blackhole.consume(held);
+    return network;
+  }
+
+
+  /**
+   * Collects garbage and gets the heap still in use.
+   * @return megabytes in use
+   */
+  private static long liveHeap() {
+    System.gc();
+    System.gc();
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / (1024 * 1024);
+  }
+}
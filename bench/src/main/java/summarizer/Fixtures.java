@@ -0,0 +1,152 @@
+package summarizer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * Networks the benchmarks run on, so that no CoreNLP models are needed.
+ * A fixture is either "synthetic", generated from a fixed seed, or the path
+ * of metadata recorded from a real document with -m (a -meta.bin file).
+ *
+ * Fixtures are kept in the metadata format, so a benchmark that changes
+ * its Network can get a fresh copy for every invocation.
+ */
+final class Fixtures {
+
+
+  /** Name of the generated fixture */
+  static final String SYNTHETIC = "synthetic";
+
+  /** Words the synthetic triples are made of, with OpenIE's spacing */
+  private static final String[] WORDS = {
+    "the", "city", "council", "Smith 's", "office", "said", "would", "spend",
+    "$ 5 million", "on", "new", "roads", ",", "and", "5 %", "of", "budget",
+    "they 're", "police", "had", "arrested", "two", "men", "; the", "owners '",
+    "house", "in", "Boston", "was", "burglarized", "she 'd", "reported"
+  };
+
+  /** Dates, as text and normalized value */
+  private static final String[][] DATES = {
+    { "March 12 , 1990", "1990-03-12" },
+    { "1990", "1990" },
+    { "the 1990s", "199X" },
+    { "Monday", "XXXX-WXX-1" },
+    { "summer of 2015", "2015-SU" },
+    { "March", "XXXX-03" },
+    { "yesterday", "OFFSET P-1D" }
+  };
+
+  /** Named entities, as noun and type */
+  private static final String[][] ENTITIES = {
+    { "Smith", "PERSON" },
+    { "Boston", "LOCATION" },
+    { "Police", "ORGANIZATION" },
+    { "Monday", "DATE" }
+  };
+
+
+  private Fixtures() {
+  }
+
+
+  /**
+   * Loads a fixture.
+   * @param fixture - "synthetic" or the path of a -meta.bin file
+   * @param sentences - number of sentences of a synthetic fixture
+   * @return the fixture in the metadata format
+   * @throws IOException
+   */
+  static byte[] load(final String fixture, final int sentences) throws IOException {
+    if (fixture.equals(SYNTHETIC)) {
+      return synthetic(sentences, 42);
+    }
+    return Files.readAllBytes(new File(fixture).toPath());
+  }
+
+
+  /**
+   * Builds the Network of a fixture.
+   * @param fixture - fixture in the metadata format
+   * @return a new Network
+   * @throws IOException
+   */
+  static Network network(final byte[] fixture) throws IOException {
+    return new Metadata(new ByteArrayInputStream(fixture)).getNetwork();
+  }
+
+
+  /**
+   * Generates a document resembling the output of OpenIE on news: most
+   * sentences have several overlapping triples, some have none, and some
+   * triples are low confidence or too short to be kept.
+   * @param sentences - number of sentences
+   * @param seed - seed of the random numbers
+   * @return the document in the metadata format
+   * @throws IOException
+   */
+  static byte[] synthetic(final int sentences, final long seed) throws IOException {
+
+    Random random = new Random(seed);
+    Network network = new Network();
+    EntitiesList ner = new EntitiesList();
+
+    for (int i = 1; i <= sentences; i++) {
+
+      EntitiesList entities = new EntitiesList();
+      for (String[] entity : ENTITIES) {
+        if (random.nextInt(3) == 0) {
+          entities.add(entity[0], entity[1], i);
+          ner.add(entity[0], entity[1], i);
+        }
+      }
+
+      List<TimeExpression> times = new ArrayList<>();
+      if (random.nextInt(3) == 0) {
+        String[] date = DATES[random.nextInt(DATES.length)];
+        times.add(new TimeExpression(date[0], date[1]));
+      }
+
+      List<Triple> triples = new ArrayList<>();
+      int count = (random.nextInt(5) == 0) ? 0 : 1 + random.nextInt(12);
+      for (int j = 0; j < count; j++) {
+        double score = (random.nextInt(4) == 0) ? 0.3 + random.nextDouble() / 2 : 1.0;
+        triples.add(new StringTriple(words(random, 1 + random.nextInt(4)),
+                                     words(random, 1 + random.nextInt(3)),
+                                     words(random, 1 + random.nextInt(8)),
+                                     score));
+      }
+
+      Sentence sentence = new Sentence(words(random, 10 + random.nextInt(30)) + " .");
+      sentence.addEntities(entities);
+      sentence.setTimes(times);
+      sentence.setAllTriples(triples);
+      network.add(i, sentence);
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    MetadataWriter.write(out, SYNTHETIC, network, ner);
+    return out.toByteArray();
+  }
+
+
+  /**
+   * Picks random words.
+   * @param random - random numbers
+   * @param count - number of words
+   * @return words separated by spaces
+   */
+  private static String words(final Random random, final int count) {
+    StringBuilder words = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+    for (int i = 1; i < count; i++) {
+      words.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+    }
+    return words.toString();
+  }
+}
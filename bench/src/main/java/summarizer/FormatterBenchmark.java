@@ -0,0 +1,102 @@
+package summarizer;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Compares Formatter.formatSentence against the previous implementation,
+ * which ran nine String.replaceAll calls on every sentence.
+ *
+ * The triples are made from the articles in 'resources', tokenized the way
+ * OpenIE glosses them (spaces around punctuation, possessives and
+ * contractions). Setup fails if the two implementations format any of them
+ * differently. Run from the root of the repository, or point
+ * -Dresources=... at the articles.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FormatterBenchmark {
+
+
+  /** Triples as actor, action and receiver */
+  private List<String[]> triples;
+
+
+  @Setup
+  public void setup() throws Exception {
+    File directory = new File(System.getProperty("resources", "resources"));
+    File[] articles = directory.listFiles((dir, name) -> name.endsWith(".txt"));
+    if (articles == null || articles.length == 0) {
+      throw new IOException("No articles found in '" + directory.getAbsolutePath() + "'.");
+    }
+
+    this.triples = new ArrayList<>();
+    Random random = new Random(1);
+    for (File article : articles) {
+      for (String sentence : Fyles.getText(article).split("(?<=[.!?]) ")) {
+        String[] words = tokenize(sentence).split(" ");
+        if (words.length < 3) {
+          continue;
+        }
+        int actorEnd = 1 + random.nextInt(words.length - 2);
+        int actionEnd = actorEnd + 1 + random.nextInt(words.length - actorEnd - 1);
+        this.triples.add(new String[] {
+          String.join(" ", Arrays.copyOfRange(words, 0, actorEnd)),
+          String.join(" ", Arrays.copyOfRange(words, actorEnd, actionEnd)),
+          String.join(" ", Arrays.copyOfRange(words, actionEnd, words.length))
+        });
+      }
+    }
+
+    for (String[] triple : this.triples) {
+      String expected = LegacyFormatter.formatSentence(triple[0], triple[1], triple[2]);
+      String actual = Formatter.formatSentence(triple[0], triple[1], triple[2]);
+      if (!expected.equals(actual)) {
+        throw new IllegalStateException("Formatted differently:\n" + expected + "\n" + actual);
+      }
+    }
+  }
+
+
+  @Benchmark
+  public void formatter(final Blackhole blackhole) {
+    for (String[] triple : this.triples) {
+      blackhole.consume(Formatter.formatSentence(triple[0], triple[1], triple[2]));
+    }
+  }
+
+
+  @Benchmark
+  public void legacyFormatter(final Blackhole blackhole) {
+    for (String[] triple : this.triples) {
+      blackhole.consume(LegacyFormatter.formatSentence(triple[0], triple[1], triple[2]));
+    }
+  }
+
+
+  /**
+   * Separates punctuation, possessives and contractions from words, as the
+   * glosses of OpenIE triples are.
+   * @param sentence - sentence
+   * @return tokens separated by single spaces
+   */
+  private static String tokenize(final String sentence) {
+    return sentence.replaceAll("([,;%$.!?\"()])", " $1 ")
+                   .replaceAll("(\\w)('s|'d|'ed|'re|')(\\W)", "$1 $2 $3")
+                   .trim()
+                   .replaceAll("\\s+", " ");
+  }
+}
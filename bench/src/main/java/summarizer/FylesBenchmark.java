@@ -0,0 +1,74 @@
+package summarizer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures reading a document and joining its lines (Fyles.getText) on
+ * generated files of different sizes, with paragraphs, headings without
+ * punctuation and blank lines. Run with -prof gc to see the allocation rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FylesBenchmark {
+
+
+  /** Size of the document in kilobytes */
+  @Param({"64", "4096"})
+  public int kilobytes;
+
+  /** The document */
+  private File document;
+
+
+  @Setup
+  public void setup() throws IOException {
+    this.document = File.createTempFile("fyles", ".txt");
+    Random random = new Random(42);
+    long size = this.kilobytes * 1024L;
+    try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(this.document.toPath(),
+                                                                  StandardCharsets.UTF_8))) {
+      long written = 0;
+      while (written < size) {
+        String line;
+        switch (random.nextInt(4)) {
+          case 0:
+            line = "Heading " + random.nextInt(1000);
+            break;
+          case 1:
+            line = "";
+            break;
+          default:
+            line = "The city council said on Monday that it would spend $ " + random.nextInt(100)
+                 + " million on new roads, and the mayor's office agreed.";
+        }
+        out.println(line);
+        written += line.length() + 1;
+      }
+    }
+  }
+
+
+  @TearDown
+  public void tearDown() {
+    this.document.delete();
+  }
+
+
+  @Benchmark
+  public String getText() throws Exception {
+    return Fyles.getText(this.document);
+  }
+}
@@ -0,0 +1,108 @@
+package summarizer;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Compares Network against the HashMap-backed implementation it replaced,
+ * on documents with tens of thousands of sentences.
+ *
+ * Each benchmark builds the network, purges sentences without triples and
+ * walks the remaining sentences in document order, as Manager.summarize
+ * and Concatenator.fuse do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NetworkBenchmark {
+
+
+  /** Number of sentences in the document */
+  @Param({"10000", "50000"})
+  public int sentenceCount;
+
+  /** Sentences of the document; every third one has no triples */
+  private Sentence[] sentences;
+
+
+  @Setup
+  public void setup() {
+    this.sentences = new Sentence[this.sentenceCount];
+    for (int i = 0; i < this.sentenceCount; i++) {
+      Sentence sentence = new Sentence("Sentence number " + i + " of the document.");
+      List<Triple> triples = new ArrayList<>();
+      if (i % 3 != 0) {
+        triples.add(new StringTriple("sentence " + i, "is", "part of the document", 1.0));
+      }
+      sentence.setAllTriples(triples);
+      this.sentences[i] = sentence;
+    }
+  }
+
+
+  @Benchmark
+  public void network(final Blackhole blackhole) {
+    Network network = new Network();
+    for (int i = 0; i < this.sentences.length; i++) {
+      network.add(i, this.sentences[i]);
+    }
+    blackhole.consume(network.purgeSentences());
+    for (Sentence sentence : network) {
+      blackhole.consume(sentence.getSentence());
+    }
+  }
+
+
+  @Benchmark
+  public void legacyNetwork(final Blackhole blackhole) {
+    LegacyNetwork network = new LegacyNetwork();
+    for (int i = 0; i < this.sentences.length; i++) {
+      network.add(i, this.sentences[i]);
+    }
+    blackhole.consume(network.purgeSentences());
+    for (Map.Entry<Integer, Sentence> pair : network.getCollection().entrySet()) {
+      blackhole.consume(pair.getValue().getSentence());
+    }
+  }
+
+
+  /**
+   * The previous implementation of Network, kept for comparison.
+   */
+  static class LegacyNetwork {
+
+
+    private Map<Integer, Sentence> network = new HashMap<>();
+
+
+    Map<Integer, Sentence> getCollection() {
+      return this.network;
+    }
+
+
+    void add(Integer sentenceNumber, Sentence sentence) {
+      this.network.put(sentenceNumber, sentence);
+    }
+
+
+    ArrayList<String> purgeSentences() {
+      ArrayList<String> removedSentences = new ArrayList<>();
+      Iterator<Map.Entry<Integer, Sentence>> it = this.network.entrySet().iterator();
+      while (it.hasNext()) {
+        Sentence sentence = it.next().getValue();
+        if (sentence.getAllTriples().isEmpty()) {
+          removedSentences.add(sentence.getSentence());
+          it.remove();
+        }
+      }
+      return removedSentences;
+    }
+  }
+}
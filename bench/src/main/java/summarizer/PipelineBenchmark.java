@@ -0,0 +1,178 @@
+package summarizer;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures each step of the pipeline after annotation on a whole document:
+ * filtering triples, dropping sentences, choosing triples, formatting the
+ * new sentences, writing out dates and fusing the summary.
+ *
+ * The document is a fixture (see Fixtures): synthetic by default, or
+ * metadata recorded with -m, e.g. -p fixture=resources/article-meta.bin.
+ * Run with -prof gc to see the allocation rate of each step.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PipelineBenchmark {
+
+
+  /** "synthetic" or the path of a -meta.bin file */
+  @Param({Fixtures.SYNTHETIC})
+  public String fixture;
+
+  /** Number of sentences of a synthetic fixture */
+  @Param({"2000"})
+  public int sentences;
+
+  /** The fixture in the metadata format */
+  private byte[] recorded;
+
+  /** The fixture, summarized (triples filtered and chosen) */
+  private Network summarized;
+
+  /** Triples chosen to represent the sentences */
+  private List<Triple> triples = new ArrayList<>();
+
+  /** Dates chosen to be added to the sentences */
+  private List<TimeExpression> times = new ArrayList<>();
+
+  /** Settings of the triple filter */
+  private TripleFilter filter = new TripleFilter();
+
+
+  @Setup
+  public void setup() throws IOException {
+    this.recorded = Fixtures.load(this.fixture, this.sentences);
+    this.summarized = Fixtures.network(this.recorded);
+    this.summarized.purgeTriples(this.filter);
+    this.summarized.purgeSentences();
+    this.summarized.chooseTriples(TripleScorer.LONGEST);
+    for (Sentence sentence : this.summarized) {
+      this.triples.add(sentence.getTriple());
+      TimeExpression time = Times.chooseDate(sentence.getTimes());
+      if (time != null) {
+        this.times.add(time);
+      }
+    }
+  }
+
+
+  /**
+   * A copy of the fixture for every invocation, for the steps that change it.
+   */
+  @State(Scope.Thread)
+  public static class Fresh {
+
+
+    /** Copy of the fixture */
+    Network network;
+
+
+    @Setup(Level.Invocation)
+    public void setup(final PipelineBenchmark benchmark) throws IOException {
+      this.network = Fixtures.network(benchmark.recorded);
+    }
+  }
+
+
+  @Benchmark
+  public List<Triple> purgeTriples(final Fresh fresh) {
+    return fresh.network.purgeTriples(this.filter);
+  }
+
+
+  @Benchmark
+  public List<String> purgeSentences(final Fresh fresh) {
+    fresh.network.purgeTriples(this.filter);
+    return fresh.network.purgeSentences();
+  }
+
+
+  @Benchmark
+  public Network chooseTriples() {
+    this.summarized.chooseTriples(TripleScorer.LONGEST);
+    return this.summarized;
+  }
+
+
+  @Benchmark
+  public void formatSentence(final Blackhole blackhole) {
+    for (Triple triple : this.triples) {
+      blackhole.consume(Formatter.formatSentence(triple.getActor(),
+                                                 triple.getAction(),
+                                                 triple.getReceiver()));
+    }
+  }
+
+
+  @Benchmark
+  public void getDateAndPreposition(final Blackhole blackhole) {
+    for (TimeExpression time : this.times) {
+      blackhole.consume(Times.getDateAndPreposition(time));
+    }
+  }
+
+
+  @Benchmark
+  public String fuse() {
+    return Concatenator.fuse(this.summarized);
+  }
+
+
+  @Benchmark
+  public void fuseStreaming(final Blackhole blackhole) throws IOException {
+    Writer sink = new BlackholeWriter(blackhole);
+    Concatenator.fuse(this.summarized, sink);
+  }
+
+
+  /**
+   * Writer that throws its text away, so streaming is measured without
+   * the cost of a destination.
+   */
+  private static class BlackholeWriter extends Writer {
+
+
+    private Blackhole blackhole;
+
+
+    BlackholeWriter(final Blackhole blackhole) {
+      this.blackhole = blackhole;
+    }
+
+
+    @Override
+    public void write(final char[] buffer, final int offset, final int length) {
+      this.blackhole.consume(buffer);
+    }
+
+
+    @Override
+    public Writer append(final CharSequence text) {
+      this.blackhole.consume(text);
+      return this;
+    }
+
+
+    @Override
+    public void flush() {
+    }
+
+
+    @Override
+    public void close() {
+    }
+  }
+}
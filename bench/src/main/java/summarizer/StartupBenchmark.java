@@ -0,0 +1,91 @@
+package summarizer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures the command line from the start of the process to the first
+ * line of the summary, with and without the class data sharing archive
+ * that 'mvn -P cds package' makes.
+ *
+ * Needs the packaged summarizer and the Stanford jars in lib; run it from
+ * the root of the repository after 'mvn -P cds package':
+ *   java -jar bench/target/benchmarks.jar StartupBenchmark
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+
+  /** The summarizer's runnable jar */
+  private static final String JAR = System.getProperty("summarizer.jar", "target/summarizer.jar");
+
+  /** The class data sharing archive */
+  private static final String ARCHIVE = System.getProperty("summarizer.archive", "target/summarizer.jsa");
+
+  /** The document summarized, the one the archive was made from */
+  private static final String DOCUMENT = "resources/article-tolstoy.txt";
+
+  /** Whether the archive is used */
+  @Param({"false", "true"})
+  public boolean cds;
+
+  /** Command that summarizes the document */
+  private List<String> command;
+
+
+  @Setup
+  public void setup() {
+    if (!new File(JAR).isFile()) {
+      throw new IllegalStateException("Missing " + JAR + ". Run 'mvn -P cds package' first.");
+    }
+    if (this.cds && !new File(ARCHIVE).isFile()) {
+      throw new IllegalStateException("Missing " + ARCHIVE + ". Run 'mvn -P cds package' first.");
+    }
+    this.command = new ArrayList<>();
+    this.command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+    this.command.add(this.cds ? "-XX:SharedArchiveFile=" + ARCHIVE : "-Xshare:auto");
+    this.command.add("-jar");
+    this.command.add(JAR);
+    this.command.add("-f");
+    this.command.add(DOCUMENT);
+  }
+
+
+  @Benchmark
+  public String firstSummary() throws IOException, InterruptedException {
+    Process process = new ProcessBuilder(this.command)
+        .redirectError(ProcessBuilder.Redirect.INHERIT)
+        .start();
+    String first = null;
+    try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                                                                         StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = out.readLine()) != null) {
+        if (line.startsWith("Summary of ")) {
+          first = out.readLine();
+          break;
+        }
+      }
+    }
+    process.destroy();
+    process.waitFor();
+    if (first == null) {
+      throw new IllegalStateException("The summarizer did not print a summary.");
+    }
+    return first;
+  }
+}
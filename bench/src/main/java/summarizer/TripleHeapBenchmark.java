@@ -0,0 +1,216 @@
+package summarizer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures the live heap taken by the triples of many documents held in
+ * memory at once (the triples only, not the sentences or named entities),
+ * depending on how the triples are stored:
+ *   extracted - strings of their own, as the extractor makes them
+ *   loaded    - strings shared within each document, as Metadata reads them
+ *   document  - ids in a table of phrases for each document
+ *   corpus    - ids in one table of phrases for every document
+ *
+ * The documents are synthetic, each from its own seed, with overlapping
+ * triples as OpenIE gives them (same actor and action, longer and longer
+ * receivers), or copies of a recorded fixture
+ * (-p fixture=path/to/doc-meta.bin). The heap is reported
+ * as 'megabytes'; JMH adds up such counters over iterations and forks, so
+ * there is a single measured iteration in a single fork, with the parallel
+ * collector (the serial collector can under-report the heap in use after
+ * System.gc).
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = "-XX:+UseParallelGC")
+@State(Scope.Thread)
+public class TripleHeapBenchmark {
+
+
+  /** Words the synthetic phrases are made of */
+  private static final String[] WORDS = {
+    "the", "city", "council", "Smith 's", "office", "mayor", "police", "budget",
+    "$ 5 million", "new", "roads", "two", "men", "owners '", "house", "Boston",
+    "company", "shares", "report", "court", "week", "year", "school", "officials"
+  };
+
+  /** Actions of the synthetic triples */
+  private static final String[] ACTIONS = {
+    "said", "would spend", "had arrested", "was burglarized in", "reported",
+    "is", "has", "announced", "will vote on", "rose", "told", "found"
+  };
+
+  /** Prepositions that extend a receiver */
+  private static final String[] PREPOSITIONS = { "on", "of", "in", "for", "with", "by" };
+
+  /** "synthetic" or the path of a -meta.bin file */
+  @Param({Fixtures.SYNTHETIC})
+  public String fixture;
+
+  /** Number of documents held in memory */
+  @Param({"2000"})
+  public int documents;
+
+  /** Number of sentences of each synthetic document */
+  @Param({"60"})
+  public int sentences;
+
+  /** How the triples are stored */
+  @Param({"extracted", "loaded", "document", "corpus"})
+  public String storage;
+
+  /** Documents in the metadata format */
+  private List<byte[]> fixtures;
+
+  /** Triples being measured */
+  private List<List<Triple>> held;
+
+
+  /**
+   * Live heap taken by the documents, in megabytes.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Heap {
+
+
+    public double megabytes;
+
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      this.megabytes = 0;
+    }
+  }
+
+
+  @Setup
+  public void setup() throws IOException {
+    this.fixtures = new ArrayList<>(this.documents);
+    byte[] recorded = this.fixture.equals(Fixtures.SYNTHETIC) ? null : Fixtures.load(this.fixture, 0);
+    for (int i = 0; i < this.documents; i++) {
+      this.fixtures.add((recorded != null) ? recorded : synthetic(this.sentences, i));
+    }
+  }
+
+
+  @Benchmark
+  public void hold(final Heap heap) throws IOException {
+    long before = liveHeap();
+    this.held = new ArrayList<>();
+    Phrases corpus = new Phrases();
+    for (byte[] document : this.fixtures) {
+      for (Sentence sentence : load(document, corpus)) {
+        this.held.add(sentence.getAllTriples());
+      }
+    }
+    heap.megabytes = (liveHeap() - before) / (1024.0 * 1024.0);
+    this.held = null;
+  }
+
+
+  /**
+   * Loads a document, storing its triples as the benchmark is set to.
+   * @param document - document in the metadata format
+   * @param corpus - table of phrases shared by every document
+   * @return network of the document
+   * @throws IOException
+   */
+  private Network load(final byte[] document, final Phrases corpus) throws IOException {
+    switch (this.storage) {
+      case "extracted":
+        Network network = Fixtures.network(document);
+        for (Sentence sentence : network) {
+          List<Triple> triples = new ArrayList<>();
+          for (Triple triple : sentence.getAllTriples()) {
+            triples.add(new StringTriple(new String(triple.getActor()),
+                                         new String(triple.getAction()),
+                                         new String(triple.getReceiver()),
+                                         triple.getScore()));
+          }
+          sentence.setAllTriples(triples);
+        }
+        return network;
+      case "loaded":
+        return Fixtures.network(document);
+      case "document":
+        return new Metadata(new ByteArrayInputStream(document), new Phrases()).getNetwork();
+      case "corpus":
+        return new Metadata(new ByteArrayInputStream(document), corpus).getNetwork();
+      default:
+        throw new IllegalArgumentException("Unknown storage: " + this.storage);
+    }
+  }
+
+
+  /**
+   * Generates a document whose sentences have overlapping triples, e.g.,
+   *   [the city council | would spend | $ 5 million]
+   *   [the city council | would spend | $ 5 million on new roads]
+   * @param sentences - number of sentences
+   * @param seed - seed of the random numbers
+   * @return the document in the metadata format
+   * @throws IOException
+   */
+  private static byte[] synthetic(final int sentences, final long seed) throws IOException {
+    Random random = new Random(seed);
+    Network network = new Network();
+    for (int i = 1; i <= sentences; i++) {
+      String actor = words(random, 1 + random.nextInt(3));
+      String action = ACTIONS[random.nextInt(ACTIONS.length)];
+      String receiver = words(random, 1 + random.nextInt(3));
+      List<Triple> triples = new ArrayList<>();
+      int count = 1 + random.nextInt(6);
+      for (int j = 0; j < count; j++) {
+        triples.add(new StringTriple(actor, action, receiver, (j == 0) ? 1.0 : 0.8));
+        receiver += " " + PREPOSITIONS[random.nextInt(PREPOSITIONS.length)]
+                    + " " + words(random, 1 + random.nextInt(3));
+      }
+      Sentence sentence = new Sentence(actor + " " + action + " " + receiver + " .");
+      sentence.addEntities(new EntitiesList());
+      sentence.setAllTriples(triples);
+      network.add(i, sentence);
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    MetadataWriter.write(out, Fixtures.SYNTHETIC, network, new EntitiesList());
+    return out.toByteArray();
+  }
+
+
+  /**
+   * Picks random words.
+   * @param random - random numbers
+   * @param count - number of words
+   * @return words separated by spaces
+   */
+  private static String words(final Random random, final int count) {
+    StringBuilder words = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+    for (int i = 1; i < count; i++) {
+      words.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+    }
+    return words.toString();
+  }
+
+
+  /**
+   * Collects garbage and gets the heap still in use.
+   * @return bytes in use
+   */
+  private static long liveHeap() {
+    System.gc();
+    System.gc();
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+}
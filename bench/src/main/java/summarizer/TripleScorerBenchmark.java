@@ -0,0 +1,110 @@
+package summarizer;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Compares choosing the triple that represents each sentence against the
+ * previous implementation, which compared the lengths of Triple.toString().
+ * OpenIE often yields dozens of overlapping triples for a long sentence.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TripleScorerBenchmark {
+
+
+  /** Number of sentences in the document */
+  private static final int SENTENCES = 1000;
+
+  /** Number of triples of each sentence */
+  @Param({"5", "40"})
+  public int triplesPerSentence;
+
+  /** Sentences of the document */
+  private List<Sentence> sentences;
+
+
+  @Setup
+  public void setup() {
+    this.sentences = new ArrayList<>();
+    for (int i = 0; i < SENTENCES; i++) {
+      Sentence sentence = new Sentence("Sentence " + i + ".");
+      EntitiesList entities = new EntitiesList();
+      entities.add("Smith", "PERSON", i);
+      entities.add("Boston", "LOCATION", i);
+      sentence.addEntities(entities);
+
+      List<Triple> triples = new ArrayList<>();
+      for (int j = 0; j < this.triplesPerSentence; j++) {
+        triples.add(new StringTriple("Mayor Smith of sentence " + i,
+                                     "said on day " + (j % 7),
+                                     "the city of Boston will spend " + j + " million dollars",
+                                     (j % 3 == 0) ? 1.0 : 0.8));
+      }
+      sentence.setAllTriples(triples);
+      this.sentences.add(sentence);
+    }
+  }
+
+
+  @Benchmark
+  public void longest(final Blackhole blackhole) {
+    for (Sentence sentence : this.sentences) {
+      sentence.chooseTriple(TripleScorer.LONGEST);
+      blackhole.consume(sentence.getTriple());
+    }
+  }
+
+
+  @Benchmark
+  public void confidence(final Blackhole blackhole) {
+    for (Sentence sentence : this.sentences) {
+      sentence.chooseTriple(TripleScorer.CONFIDENCE);
+      blackhole.consume(sentence.getTriple());
+    }
+  }
+
+
+  @Benchmark
+  public void entities(final Blackhole blackhole) {
+    for (Sentence sentence : this.sentences) {
+      sentence.chooseTriple(TripleScorer.ENTITIES);
+      blackhole.consume(sentence.getTriple());
+    }
+  }
+
+
+  @Benchmark
+  public void legacyLongest(final Blackhole blackhole) {
+    for (Sentence sentence : this.sentences) {
+      blackhole.consume(chooseLongestTriple(sentence.getAllTriples()));
+    }
+  }
+
+
+  /**
+   * The previous Sentence.chooseLongestTriples, kept for comparison.
+   * @param triples - triples of a sentence
+   * @return the longest triple
+   */
+  private static Triple chooseLongestTriple(final List<Triple> triples) {
+    Triple longestTriple = null;
+    for (Triple nextTriple : triples) {
+      if (longestTriple == null) {
+        longestTriple = nextTriple;
+      } else if (nextTriple.toString().length() > longestTriple.toString().length()) {
+        longestTriple = nextTriple;
+      }
+    }
+    return longestTriple;
+  }
+}